@@ -0,0 +1,106 @@
+package pl.monmat.manager.api.allegro.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+final class AllegroFixtures {
+    private static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor "
+            + "incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation. ";
+
+    private AllegroFixtures() {
+    }
+
+    static byte[] checkoutFormsPage(int size) {
+        StringBuilder json = new StringBuilder(size * 2_048);
+        json.append("{\"checkoutForms\":[");
+        Instant boughtAt = Instant.parse("2025-01-15T10:00:00Z");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) json.append(',');
+            appendCheckoutForm(json, i, boughtAt.plusSeconds(i * 60L));
+        }
+        json.append("],\"count\":").append(size).append(",\"totalCount\":").append(size * 10).append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] offerDetails(int sections, int paragraphsPerSection) {
+        StringBuilder json = new StringBuilder(sections * paragraphsPerSection * LOREM.length() + 1_024);
+        json.append("{\"id\":\"14000000001\",\"name\":\"Koszulka bawełniana\",")
+                .append("\"category\":{\"id\":\"257931\",\"name\":\"Koszulki\"},")
+                .append("\"parameters\":[")
+                .append("{\"id\":\"11323\",\"name\":\"Stan\",\"valuesIds\":[\"11323_1\"],\"values\":[\"Nowy\"]},")
+                .append("{\"id\":\"236\",\"name\":\"Rozmiar\",\"valuesIds\":[\"236_4\"],\"values\":[\"M\"]},")
+                .append("{\"id\":\"3786\",\"name\":\"Kolor\",\"valuesIds\":[],\"values\":[\"czarny\"]}],")
+                .append("\"images\":[");
+        for (int i = 0; i < 16; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"url\":\"https://a.allegroimg.com/original/11/").append(i).append("/image.jpg\"}");
+        }
+        json.append("],\"description\":{\"sections\":[");
+        for (int s = 0; s < sections; s++) {
+            if (s > 0) json.append(',');
+            json.append("{\"items\":[{\"type\":\"TEXT\",\"content\":\"<h2>Sekcja ").append(s).append("</h2>");
+            for (int p = 0; p < paragraphsPerSection; p++) {
+                json.append("<p>").append(LOREM).append("<b>").append(p).append("</b></p>");
+            }
+            if (s == sections - 1) {
+                json.append("<p>// KOSZ-M-CZ-0042</p>");
+            }
+            json.append("\"},{\"type\":\"IMAGE\",\"url\":\"https://a.allegroimg.com/original/11/s").append(s)
+                    .append("/image.jpg\"}]}");
+        }
+        json.append("]},\"stock\":{\"available\":25,\"unit\":\"UNIT\"},\"publication\":{\"status\":\"ACTIVE\"}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendCheckoutForm(StringBuilder json, int i, Instant boughtAt) {
+        String id = String.format("29ca3cf0-%04d-11ef-8f1f-0242ac120002", i);
+        json.append("{\"id\":\"").append(id).append("\",")
+                .append("\"messageToSeller\":\"Proszę o szybką wysyłkę\",")
+                .append("\"buyer\":{\"id\":\"").append(40_000_000 + i).append("\",\"email\":\"buyer").append(i)
+                .append("@allegromail.pl\",\"login\":\"buyer_").append(i)
+                .append("\",\"firstName\":\"Jan\",\"lastName\":\"Kowalski\",\"companyName\":null,\"guest\":false,")
+                .append("\"personalIdentity\":null,\"phoneNumber\":\"+48500100").append(String.format("%03d", i % 1000))
+                .append("\",\"preferences\":{\"language\":\"pl-PL\"},")
+                .append("\"address\":{\"street\":\"Prosta 1\",\"city\":\"Warszawa\",\"postCode\":\"00-001\",\"countryCode\":\"PL\"}},")
+                .append("\"payment\":{\"id\":\"pay-").append(i).append("\",\"type\":\"ONLINE\",\"provider\":\"P24\",")
+                .append("\"finishedAt\":\"").append(boughtAt.plusSeconds(30)).append("\",")
+                .append("\"paidAmount\":{\"amount\":\"123.45\",\"currency\":\"PLN\"},\"reconciliation\":null},")
+                .append("\"status\":\"READY_FOR_PROCESSING\",")
+                .append("\"fulfillment\":{\"status\":\"NEW\",\"shipmentSummary\":{\"lineItemsSent\":\"NONE\"}},")
+                .append("\"delivery\":{\"address\":{\"firstName\":\"Jan\",\"lastName\":\"Kowalski\",\"street\":\"Prosta 1\",")
+                .append("\"city\":\"Warszawa\",\"zipCode\":\"00-001\",\"countryCode\":\"PL\",\"companyName\":null,")
+                .append("\"phoneNumber\":\"+48500200300\",\"modifiedAt\":null},")
+                .append("\"method\":{\"id\":\"b20ef9e1-faa2-4f25-9032-adbea23e5cb9\",\"name\":\"Allegro Paczkomaty InPost\"},")
+                .append("\"pickupPoint\":{\"id\":\"WAW01M\",\"name\":\"Paczkomat WAW01M\",\"description\":\"Przy sklepie\",")
+                .append("\"address\":{\"street\":\"Prosta 2\",\"zipCode\":\"00-001\",\"city\":\"Warszawa\",\"countryCode\":\"PL\"}},")
+                .append("\"cost\":{\"amount\":\"8.99\",\"currency\":\"PLN\"},")
+                .append("\"time\":{\"from\":\"").append(boughtAt.plusSeconds(86_400)).append("\",\"to\":\"")
+                .append(boughtAt.plusSeconds(172_800)).append("\"},\"smart\":true,\"calculatedNumberOfPackages\":1},")
+                .append("\"invoice\":{\"required\":").append(i % 5 == 0).append(",\"address\":")
+                .append(i % 5 == 0
+                        ? "{\"street\":\"Firmowa 5\",\"city\":\"Kraków\",\"zipCode\":\"30-001\",\"countryCode\":\"PL\","
+                        + "\"company\":{\"name\":\"Firma Sp. z o.o.\",\"taxId\":\"1234567890\"},\"naturalPerson\":null}"
+                        : "null")
+                .append(",\"dueDate\":null},")
+                .append("\"lineItems\":[");
+        int lineItems = 1 + i % 3;
+        for (int l = 0; l < lineItems; l++) {
+            if (l > 0) json.append(',');
+            json.append("{\"id\":\"li-").append(i).append('-').append(l).append("\",")
+                    .append("\"offer\":{\"id\":\"").append(14_000_000_000L + (i * 7L + l) % 250)
+                    .append("\",\"name\":\"Koszulka bawełniana rozmiar M kolor czarny\",\"external\":{\"id\":\"SKU-")
+                    .append(l).append("\"},\"productSet\":null},")
+                    .append("\"quantity\":").append(1 + l).append(',')
+                    .append("\"originalPrice\":{\"amount\":\"49.99\",\"currency\":\"PLN\"},")
+                    .append("\"price\":{\"amount\":\"39.99\",\"currency\":\"PLN\"},")
+                    .append("\"reconciliation\":{\"value\":{\"amount\":\"2.40\",\"currency\":\"PLN\"},\"type\":\"BILLING\"},")
+                    .append("\"selectedAdditionalServices\":[],\"vouchers\":[],\"tax\":null,")
+                    .append("\"boughtAt\":\"").append(boughtAt.minusSeconds(l)).append("\"}");
+        }
+        json.append("],")
+                .append("\"surcharges\":[],\"discounts\":[],\"note\":null,")
+                .append("\"marketplace\":{\"id\":\"allegro-pl\"},")
+                .append("\"summary\":{\"totalToPay\":{\"amount\":\"132.44\",\"currency\":\"PLN\"}},")
+                .append("\"updatedAt\":\"").append(boughtAt.plusSeconds(60)).append("\",\"revision\":\"a1b2c3d4\"}");
+    }
+}
@@ -0,0 +1,58 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.monmat.manager.api.allegro.api.CheckoutForm;
+import pl.monmat.manager.api.allegro.api.CheckoutFormsResponse;
+import pl.monmat.manager.api.allegro.api.LineItem;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutFormMappingBenchmark {
+    @Param({"100"})
+    int pageSize;
+
+    private final CheckoutFormMapper mapper = new CheckoutFormMapper();
+    private List<CheckoutForm> forms;
+    private Map<String, Map<String, Object>> offerAttributes;
+
+    @Setup
+    public void setUp() {
+        forms = JsonMapper.builder().build()
+                .readValue(AllegroFixtures.checkoutFormsPage(pageSize), CheckoutFormsResponse.class)
+                .checkoutForms();
+        offerAttributes = new HashMap<>();
+        for (CheckoutForm form : forms) {
+            for (LineItem lineItem : form.lineItems()) {
+                offerAttributes.put(lineItem.offer().id(), Map.of("categoryId", "257931", "internalId", "KOSZ-M-CZ-0042"));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapPage(Blackhole blackhole) {
+        for (CheckoutForm form : forms) {
+            blackhole.consume(mapper.toCreateOrderRequest(form, offerAttributes));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.monmat.manager.api.allegro.api.CheckoutFormsResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutFormsDeserializationBenchmark {
+    @Param({"10", "100"})
+    int pageSize;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private byte[] page;
+
+    @Setup
+    public void setUp() {
+        page = AllegroFixtures.checkoutFormsPage(pageSize);
+    }
+
+    @Benchmark
+    public CheckoutFormsResponse bindPage() {
+        return jsonMapper.readValue(page, CheckoutFormsResponse.class);
+    }
+}
@@ -0,0 +1,57 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.monmat.manager.api.allegro.api.AllegroOfferDetails;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductAttributeParserBenchmark {
+    @Param({"4", "40"})
+    int sections;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final ProductAttributeParser parser = new ProductAttributeParser(jsonMapper, Set.of("236", "3786"));
+    private byte[] offerJson;
+    private AllegroOfferDetails offerDetails;
+
+    @Setup
+    public void setUp() {
+        offerJson = AllegroFixtures.offerDetails(sections, 25);
+        offerDetails = jsonMapper.readValue(offerJson, AllegroOfferDetails.class);
+    }
+
+    @Benchmark
+    public Map<String, Object> extractAttributes() {
+        return parser.extractAttributes(offerDetails);
+    }
+
+    @Benchmark
+    public Map<String, Object> bindAndExtractAttributes() {
+        return parser.extractAttributes(jsonMapper.readValue(offerJson, AllegroOfferDetails.class));
+    }
+
+    @Benchmark
+    public Map<String, Object> streamAttributes() {
+        return parser.extractAttributes(new ByteArrayInputStream(offerJson));
+    }
+}
@@ -0,0 +1,118 @@
+package pl.monmat.manager.api.order;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import pl.monmat.manager.api.common.model.Address;
+import pl.monmat.manager.api.order.dto.BatchOrderResult;
+import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+import pl.monmat.manager.api.order.dto.OrderItemRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPersistenceBenchmark {
+    private static final int BATCH_SIZE = 100;
+    private static final String H2_URL = "jdbc:h2:mem:orders-benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;"
+            + "INIT=CREATE DOMAIN IF NOT EXISTS jsonb AS JSON";
+    private final AtomicLong sequence = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(BenchmarkConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + System.getProperty("benchmark.datasource.url", H2_URL),
+                        "spring.datasource.username=" + System.getProperty("benchmark.datasource.username", "sa"),
+                        "spring.datasource.password=" + System.getProperty("benchmark.datasource.password", ""),
+                        "spring.flyway.enabled=false",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "spring.jpa.properties.hibernate.order_inserts=true",
+                        "orders.custom-id.block-size=50",
+                        "logging.level.root=WARN"
+                )
+                .run();
+        orderService = context.getBean(OrderService.class);
+        orderService.createOrder(request(sequence.incrementAndGet()));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return orderService.createOrder(request(sequence.incrementAndGet()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<BatchOrderResult> createOrders() {
+        List<CreateOrderRequest> requests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            requests.add(request(sequence.incrementAndGet()));
+        }
+        return orderService.createOrders(requests);
+    }
+
+    private static CreateOrderRequest request(long n) {
+        Address address = new Address();
+        address.setFirstName("Jan");
+        address.setLastName("Kowalski");
+        address.setStreet("Prosta 1");
+        address.setCity("Warszawa");
+        address.setZipCode("00-001");
+        address.setCountryCode("PL");
+        address.setPhoneNumber("+48500200300");
+        List<OrderItemRequest> items = List.of(
+                new OrderItemRequest("14000000001", "Koszulka bawełniana M czarna", 1, new BigDecimal("39.99"), "PLN",
+                        Map.of("categoryId", "257931", "internalId", "KOSZ-M-CZ-0042")),
+                new OrderItemRequest("14000000002", "Bluza z kapturem L szara", 2, new BigDecimal("89.99"), "PLN",
+                        Map.of("categoryId", "257932", "internalId", "BLUZ-L-SZ-0007"))
+        );
+        return new CreateOrderRequest(
+                "bench-" + n, "buyer" + n + "@allegromail.pl", LocalDateTime.of(2025, 1, 15, 10, 0),
+                "+48500200300", "buyer_" + n, false, address, new BigDecimal("228.96"), "PLN",
+                LocalDateTime.of(2025, 1, 15, 10, 1), new BigDecimal("8.99"), "PLN",
+                "b20ef9e1-faa2-4f25-9032-adbea23e5cb9", "Allegro Paczkomaty InPost", "WAW01M", true,
+                false, null, null, items);
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @Import({OrderService.class, CustomIdAllocator.class})
+    static class BenchmarkConfiguration {
+    }
+}
@@ -0,0 +1,11 @@
+package pl.monmat.manager.api.allegro.api;
+
+import java.time.Instant;
+
+public record OrderEvent(String id, EventOrder order, String type, Instant occurredAt) {
+    public record EventOrder(CheckoutFormRef checkoutForm) {
+    }
+
+    public record CheckoutFormRef(String id) {
+    }
+}
@@ -0,0 +1,8 @@
+package pl.monmat.manager.api.allegro.api;
+
+import java.time.Instant;
+
+public record OrderEventStats(LatestEvent latestEvent) {
+    public record LatestEvent(String id, Instant occurredAt) {
+    }
+}
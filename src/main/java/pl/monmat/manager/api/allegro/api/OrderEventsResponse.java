@@ -0,0 +1,6 @@
+package pl.monmat.manager.api.allegro.api;
+
+import java.util.List;
+
+public record OrderEventsResponse(List<OrderEvent> events) {
+}
@@ -0,0 +1,15 @@
+package pl.monmat.manager.api.allegro.service;
+
+public record AllegroAccount(String code) {
+    public static final String DEFAULT_CODE = "default";
+    public static final AllegroAccount DEFAULT = new AllegroAccount(DEFAULT_CODE);
+    static final String REQUEST_ATTRIBUTE = AllegroAccount.class.getName();
+
+    public boolean isDefault() {
+        return DEFAULT_CODE.equals(code);
+    }
+
+    public String settingKey(String name) {
+        return isDefault() ? "allegro." + name : "allegro." + code + "." + name;
+    }
+}
@@ -0,0 +1,46 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import pl.monmat.manager.api.common.SystemSetting;
+import pl.monmat.manager.api.common.SystemSettingRepository;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+@Component
+public class AllegroAccountRegistry {
+    private static final Logger log = LoggerFactory.getLogger(AllegroAccountRegistry.class);
+    private static final String ACCOUNTS_KEY = "allegro.accounts";
+    private static final Pattern ACCOUNT_CODE = Pattern.compile("[a-z0-9][a-z0-9-]*");
+    private final SystemSettingRepository systemSettingRepository;
+
+    public AllegroAccountRegistry(SystemSettingRepository systemSettingRepository) {
+        this.systemSettingRepository = systemSettingRepository;
+    }
+
+    public List<AllegroAccount> accounts() {
+        return systemSettingRepository.findById(ACCOUNTS_KEY)
+                .map(SystemSetting::getSettingValue)
+                .map(this::parseAccounts)
+                .filter(accounts -> !accounts.isEmpty())
+                .orElse(List.of(AllegroAccount.DEFAULT));
+    }
+
+    private List<AllegroAccount> parseAccounts(String value) {
+        Set<AllegroAccount> accounts = new LinkedHashSet<>();
+        for (String code : value.split(",")) {
+            String trimmed = code.trim();
+            if (trimmed.isEmpty()) continue;
+            if (!ACCOUNT_CODE.matcher(trimmed).matches()) {
+                log.warn("Ignoring invalid Allegro account code '{}' in {}", trimmed, ACCOUNTS_KEY);
+                continue;
+            }
+            accounts.add(new AllegroAccount(trimmed));
+        }
+        return List.copyOf(accounts);
+    }
+}
@@ -0,0 +1,47 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+@Component
+public class AllegroAuthInterceptor implements ClientHttpRequestInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(AllegroAuthInterceptor.class);
+    private final AllegroAuthService authService;
+    private final AllegroSyncMetrics metrics;
+
+    public AllegroAuthInterceptor(AllegroAuthService authService, AllegroSyncMetrics metrics) {
+        this.authService = authService;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        AllegroAccount account = accountOf(request);
+        String accessToken = authService.getAccessToken(account);
+        request.getHeaders().setBearerAuth(accessToken);
+        ClientHttpResponse response = execution.execute(request, body);
+        if (!response.getStatusCode().isSameCodeAs(HttpStatus.UNAUTHORIZED)) {
+            return response;
+        }
+        response.close();
+        metrics.tokenRejected();
+        log.info("Access token for account {} rejected for {} {}, refreshing and retrying once",
+                account.code(), request.getMethod(), request.getURI().getPath());
+        request.getHeaders().setBearerAuth(authService.refreshRejectedToken(account, accessToken));
+        return execution.execute(request, body);
+    }
+
+    private static AllegroAccount accountOf(HttpRequest request) {
+        return request.getAttributes().get(AllegroAccount.REQUEST_ATTRIBUTE) instanceof AllegroAccount account
+                ? account
+                : AllegroAccount.DEFAULT;
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -11,48 +12,96 @@ import org.springframework.web.client.RestClient;
 import pl.monmat.manager.api.common.SystemSetting;
 import pl.monmat.manager.api.common.SystemSettingRepository;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class AllegroAuthService {
     private static final Logger log = LoggerFactory.getLogger(AllegroAuthService.class);
+    private static final Duration EXPIRY_MARGIN = Duration.ofMinutes(5);
+    private static final Duration PROACTIVE_REFRESH_WINDOW = Duration.ofMinutes(15);
     private final RestClient restClient;
     private final SystemSettingRepository systemSettingRepository;
-    private String cachedAccessToken;
-    private LocalDateTime tokenExpiresAt;
+    private final ConcurrentMap<AllegroAccount, AccountToken> tokens = new ConcurrentHashMap<>();
 
-    public AllegroAuthService(RestClient.Builder builder, SystemSettingRepository systemSettingRepository) {
-        this.restClient = builder.baseUrl("https://allegro.pl").build();
+    public AllegroAuthService(
+            RestClient.Builder builder,
+            SystemSettingRepository systemSettingRepository
+    ) {
+        this.restClient = builder.clone()
+                .baseUrl("https://allegro.pl")
+                .build();
         this.systemSettingRepository = systemSettingRepository;
     }
 
-    public String getAccessToken() {
-        if (isTokenValid()) {
-            log.debug("Using cached access token");
-            return cachedAccessToken;
+    public String getAccessToken(AllegroAccount account) {
+        AccountToken state = tokenState(account);
+        CachedToken token = state.cachedToken;
+        if (token != null && token.isValidFor(EXPIRY_MARGIN)) {
+            log.debug("Using cached access token for account {}", account.code());
+            return token.accessToken();
+        }
+        return refresh(account, state, token).accessToken();
+    }
+
+    public String refreshRejectedToken(AllegroAccount account, String rejectedAccessToken) {
+        AccountToken state = tokenState(account);
+        CachedToken token = state.cachedToken;
+        if (token != null && !token.accessToken().equals(rejectedAccessToken)) {
+            return token.accessToken();
         }
-        log.info("Requesting new access token using refresh_token flow");
-        TokenResponse response = refreshAccessToken();
-        cacheToken(response);
-        log.info("Successfully obtained access token, expires in {} seconds", response.expiresIn());
-        return cachedAccessToken;
+        return refresh(account, state, token).accessToken();
     }
 
-    private boolean isTokenValid() {
-        return cachedAccessToken != null
-                && tokenExpiresAt != null
-                && LocalDateTime.now().plusMinutes(5).isBefore(tokenExpiresAt);
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void refreshBeforeExpiry() {
+        tokens.forEach((account, state) -> {
+            CachedToken token = state.cachedToken;
+            if (token == null || token.isValidFor(PROACTIVE_REFRESH_WINDOW)) {
+                return;
+            }
+            try {
+                refresh(account, state, token);
+            } catch (Exception e) {
+                log.warn("Proactive access token refresh for account {} failed, will retry: {}", account.code(), e.getMessage());
+            }
+        });
     }
 
-    private void cacheToken(TokenResponse response) {
-        cachedAccessToken = response.accessToken();
-        tokenExpiresAt = LocalDateTime.now().plusSeconds(response.expiresIn());
+    private AccountToken tokenState(AllegroAccount account) {
+        return tokens.computeIfAbsent(account, a -> new AccountToken());
     }
 
-    private TokenResponse refreshAccessToken() {
-        String clientId = getSetting("allegro.client-id", "Allegro client-id not found in system_settings");
-        String clientSecret = getSetting("allegro.client-secret", "Allegro client-secret not found in system_settings");
-        String refreshToken = getSetting("allegro.refresh-token", "Allegro refresh-token not found in system_settings");
+    private CachedToken refresh(AllegroAccount account, AccountToken state, CachedToken staleToken) {
+        state.refreshLock.lock();
+        try {
+            CachedToken current = state.cachedToken;
+            if (current != staleToken && current != null && current.isValidFor(EXPIRY_MARGIN)) {
+                log.debug("Access token for account {} was refreshed by another caller", account.code());
+                return current;
+            }
+            log.info("Requesting new access token for account {} using refresh_token flow", account.code());
+            TokenResponse response = refreshAccessToken(account);
+            CachedToken refreshed = new CachedToken(response.accessToken(), Instant.now().plusSeconds(response.expiresIn()));
+            state.cachedToken = refreshed;
+            log.info("Successfully obtained access token for account {}, expires in {} seconds",
+                    account.code(), response.expiresIn());
+            return refreshed;
+        } finally {
+            state.refreshLock.unlock();
+        }
+    }
+
+    private TokenResponse refreshAccessToken(AllegroAccount account) {
+        String clientIdKey = account.settingKey("client-id");
+        String clientSecretKey = account.settingKey("client-secret");
+        String refreshTokenKey = account.settingKey("refresh-token");
+        String clientId = getSetting(clientIdKey, "Allegro client-id not found in system_settings under " + clientIdKey);
+        String clientSecret = getSetting(clientSecretKey, "Allegro client-secret not found in system_settings under " + clientSecretKey);
+        String refreshToken = getSetting(refreshTokenKey, "Allegro refresh-token not found in system_settings under " + refreshTokenKey);
         log.debug("Using refresh token: {}...", refreshToken.substring(0, Math.min(20, refreshToken.length())));
         MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
         body.add("grant_type", "refresh_token");
@@ -65,11 +114,11 @@ public class AllegroAuthService {
                     .body(body)
                     .retrieve()
                     .body(TokenResponse.class);
-            updateRefreshTokenIfNeeded(response, refreshToken);
+            updateRefreshTokenIfNeeded(refreshTokenKey, response, refreshToken);
             return response;
         } catch (Exception e) {
-            log.error("Failed to refresh access token: {}", e.getMessage());
-            log.error("Please verify allegro.client-id, allegro.client-secret, and allegro.refresh-token in database");
+            log.error("Failed to refresh access token for account {}: {}", account.code(), e.getMessage());
+            log.error("Please verify {}, {}, and {} in database", clientIdKey, clientSecretKey, refreshTokenKey);
             throw new RuntimeException("Failed to refresh Allegro access token", e);
         }
     }
@@ -82,10 +131,21 @@ public class AllegroAuthService {
                 .orElseThrow(() -> new RuntimeException(errorMessage));
     }
 
-    private void updateRefreshTokenIfNeeded(TokenResponse response, String currentRefreshToken) {
+    private void updateRefreshTokenIfNeeded(String refreshTokenKey, TokenResponse response, String currentRefreshToken) {
         if (response != null && response.refreshToken() != null && !response.refreshToken().equals(currentRefreshToken)) {
-            log.info("Updating refresh token in database");
-            systemSettingRepository.save(new SystemSetting("allegro.refresh-token", response.refreshToken()));
+            log.info("Updating {} in database", refreshTokenKey);
+            systemSettingRepository.save(new SystemSetting(refreshTokenKey, response.refreshToken()));
+        }
+    }
+
+    private static final class AccountToken {
+        private final ReentrantLock refreshLock = new ReentrantLock();
+        private volatile CachedToken cachedToken;
+    }
+
+    private record CachedToken(String accessToken, Instant expiresAt) {
+        boolean isValidFor(Duration duration) {
+            return Instant.now().plus(duration).isBefore(expiresAt);
         }
     }
 
@@ -0,0 +1,121 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class AllegroRateLimiter {
+    private static final double MIN_RATE = 0.5;
+    private final double maxRate;
+    private final int maxConcurrency;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private double rate;
+    private double tokens;
+    private double concurrencyLimit;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private int inFlight;
+    private int waiting;
+
+    public AllegroRateLimiter(
+            @Value("${allegro.rate-limit.requests-per-second:20}") double requestsPerSecond,
+            @Value("${allegro.rate-limit.max-concurrency:16}") int maxConcurrency
+    ) {
+        this.maxRate = Math.max(MIN_RATE, requestsPerSecond);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.rate = maxRate;
+        this.tokens = maxRate;
+        this.concurrencyLimit = this.maxConcurrency;
+        this.lastRefillNanos = System.nanoTime();
+        this.pausedUntilNanos = lastRefillNanos;
+    }
+
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        waiting++;
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                refill(now);
+                if (now - pausedUntilNanos < 0) {
+                    stateChanged.awaitNanos(pausedUntilNanos - now);
+                } else if (inFlight >= (int) concurrencyLimit) {
+                    stateChanged.await();
+                } else if (tokens < 1) {
+                    stateChanged.awaitNanos((long) ((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1)));
+                } else {
+                    tokens -= 1;
+                    inFlight++;
+                    return;
+                }
+            }
+        } finally {
+            waiting--;
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            inFlight--;
+            concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+            rate = Math.min(maxRate, rate + maxRate / 50);
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onThrottled(Duration retryAfter) {
+        lock.lock();
+        try {
+            inFlight--;
+            concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+            rate = Math.max(MIN_RATE, rate / 2);
+            tokens = Math.min(tokens, 0);
+            long resumeAt = System.nanoTime() + retryAfter.toNanos();
+            if (resumeAt - pausedUntilNanos > 0) {
+                pausedUntilNanos = resumeAt;
+            }
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure() {
+        lock.lock();
+        try {
+            inFlight--;
+            concurrencyLimit = Math.max(1, concurrencyLimit * 0.75);
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(rate, (int) concurrencyLimit, inFlight, waiting);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(rate, tokens + elapsedSeconds * rate);
+        lastRefillNanos = now;
+    }
+
+    public record Stats(double requestsPerSecond, int concurrencyLimit, int inFlight, int queueDepth) {
+    }
+}
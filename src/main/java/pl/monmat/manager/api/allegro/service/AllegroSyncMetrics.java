@@ -0,0 +1,142 @@
+package pl.monmat.manager.api.allegro.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class AllegroSyncMetrics {
+    private final MeterRegistry registry;
+    private final Counter fetched;
+    private final Counter created;
+    private final Counter updated;
+    private final Counter skipped;
+    private final Counter failed;
+    private final Timer throttleWait;
+    private final Counter rejectedTokens;
+    private final Map<String, Set<BlockingQueue<?>>> queues = new ConcurrentHashMap<>();
+
+    public AllegroSyncMetrics(MeterRegistry registry, OfferAttributesCache offerCache, AllegroRateLimiter rateLimiter) {
+        this.registry = registry;
+        this.fetched = orderCounter("fetched");
+        this.created = orderCounter("created");
+        this.updated = orderCounter("updated");
+        this.skipped = orderCounter("skipped");
+        this.failed = orderCounter("failed");
+        this.throttleWait = Timer.builder("allegro.ratelimit.wait")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejectedTokens = Counter.builder("allegro.auth.token.rejected")
+                .register(registry);
+        FunctionCounter.builder("allegro.offer.cache.requests", offerCache, c -> c.stats().hits())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("allegro.offer.cache.requests", offerCache, c -> c.stats().misses())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("allegro.offer.cache.evictions", offerCache, c -> c.stats().evictions())
+                .register(registry);
+        Gauge.builder("allegro.offer.cache.size", offerCache, OfferAttributesCache::size)
+                .register(registry);
+        Gauge.builder("allegro.ratelimit.rate", rateLimiter, l -> l.stats().requestsPerSecond())
+                .baseUnit("requests/s")
+                .register(registry);
+        Gauge.builder("allegro.ratelimit.concurrency.limit", rateLimiter, l -> l.stats().concurrencyLimit())
+                .register(registry);
+        Gauge.builder("allegro.ratelimit.in.flight", rateLimiter, l -> l.stats().inFlight())
+                .register(registry);
+        Gauge.builder("allegro.ratelimit.queue.depth", rateLimiter, l -> l.stats().queueDepth())
+                .register(registry);
+    }
+
+    public Timer.Sample startRun() {
+        return Timer.start(registry);
+    }
+
+    public void stopRun(Timer.Sample sample, String mode, String account, boolean success) {
+        sample.stop(Timer.builder("allegro.sync.duration")
+                .tag("mode", mode)
+                .tag("account", account)
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public Timer.Sample startStage() {
+        return Timer.start(registry);
+    }
+
+    public void stopStage(Timer.Sample sample, String stage, int orders) {
+        sample.stop(Timer.builder("allegro.sync.stage.duration")
+                .tag("stage", stage)
+                .register(registry));
+        stageCompleted(stage, orders);
+    }
+
+    public void stageCompleted(String stage, int orders) {
+        Counter.builder("allegro.sync.stage.orders")
+                .tag("stage", stage)
+                .register(registry)
+                .increment(orders);
+    }
+
+    public void trackQueue(String name, BlockingQueue<?> queue) {
+        queues.computeIfAbsent(name, n -> {
+            Set<BlockingQueue<?>> live = ConcurrentHashMap.newKeySet();
+            Gauge.builder("allegro.sync.queue.depth", live, l -> l.stream().mapToInt(BlockingQueue::size).sum())
+                    .tag("queue", n)
+                    .register(registry);
+            return live;
+        }).add(queue);
+    }
+
+    public void untrackQueue(String name, BlockingQueue<?> queue) {
+        Set<BlockingQueue<?>> live = queues.get(name);
+        if (live != null) {
+            live.remove(queue);
+        }
+    }
+
+    public void throttleWaited(long nanos) {
+        throttleWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void tokenRejected() {
+        rejectedTokens.increment();
+    }
+
+    public void ordersFetched(int count) {
+        fetched.increment(count);
+    }
+
+    public void ordersCreated(int count) {
+        created.increment(count);
+    }
+
+    public void ordersUpdated(int count) {
+        updated.increment(count);
+    }
+
+    public void ordersSkipped(int count) {
+        skipped.increment(count);
+    }
+
+    public void ordersFailed(int count) {
+        failed.increment(count);
+    }
+
+    private Counter orderCounter(String outcome) {
+        return Counter.builder("allegro.sync.orders")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
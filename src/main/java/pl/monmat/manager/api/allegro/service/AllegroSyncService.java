@@ -1,344 +1,683 @@
 package pl.monmat.manager.api.allegro.service;
 
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
 import pl.monmat.manager.api.allegro.api.*;
-import pl.monmat.manager.api.common.model.Address;
-import pl.monmat.manager.api.common.model.InvoiceDetails;
-import pl.monmat.manager.api.order.Order;
+import pl.monmat.manager.api.common.SyncLeaseService;
+import pl.monmat.manager.api.common.SystemSetting;
+import pl.monmat.manager.api.common.SystemSettingRepository;
 import pl.monmat.manager.api.order.OrderService;
+import pl.monmat.manager.api.order.dto.BatchOrderResult;
 import pl.monmat.manager.api.order.dto.CreateOrderRequest;
-import pl.monmat.manager.api.order.dto.OrderItemRequest;
-
-import java.math.BigDecimal;
+import pl.monmat.manager.api.order.dto.OrderSourceState;
+import pl.monmat.manager.api.order.dto.SourceOrderUpdate;
+import pl.monmat.manager.api.order.dto.SourceRevision;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 @Service
 public class AllegroSyncService {
     private static final Logger log = LoggerFactory.getLogger(AllegroSyncService.class);
-    private static final String DEFAULT_CURRENCY = "PLN";
-    private static final int SYNC_LIMIT = 100;
-    private static final int MAX_PAGES = 1;
-    private final AllegroAuthService authService;
+    private static final int EVENTS_LIMIT = 1000;
+    private static final int MAX_EVENT_BATCHES = 10;
+    private static final String READY_FOR_PROCESSING = "READY_FOR_PROCESSING";
+    private static final String EVENT_CURSOR_SETTING = "order-events.last-event-id";
+    private static final String PAGE_WATERMARK_SETTING = "order-pages.updated-at-watermark";
+    private static final String LEASE_PREFIX = "allegro.sync.";
     private final OrderService orderService;
     private final ProductAttributeParser attributeParser;
+    private final CheckoutFormMapper checkoutFormMapper;
+    private final OfferAttributesCache offerCache;
+    private final AllegroSyncMetrics metrics;
+    private final SystemSettingRepository systemSettingRepository;
+    private final AllegroAccountRegistry accountRegistry;
+    private final SyncLeaseService leaseService;
+    private final int accountConcurrency;
+    private final ExecutorService accountExecutor;
+    private final Set<AllegroAccount> runningAccounts = ConcurrentHashMap.newKeySet();
+    private final Set<AllegroAccount> lostLeases = ConcurrentHashMap.newKeySet();
+    private int dispatchRound;
     private final RestClient apiClient;
+    private final JsonMapper jsonMapper;
+    private final int offerFetchConcurrency;
+    private final SyncMode syncMode;
+    private final int pageSize;
+    private final int maxPagesPerRun;
+    private final Duration maxRunDuration;
+    private final int chunkSize;
+    private final int bufferedChunks;
+    private final int enrichConcurrency;
+    private final int persistBatchSize;
 
     public AllegroSyncService(
-            AllegroAuthService auth,
             OrderService orderSvc,
             ProductAttributeParser parser,
-            RestClient.Builder clientBuilder
+            CheckoutFormMapper checkoutFormMapper,
+            OfferAttributesCache offerCache,
+            AllegroSyncMetrics metrics,
+            SystemSettingRepository settingRepository,
+            AllegroAccountRegistry accountRegistry,
+            SyncLeaseService leaseService,
+            RestClient.Builder clientBuilder,
+            JsonMapper jsonMapper,
+            AllegroThrottlingInterceptor throttlingInterceptor,
+            AllegroAuthInterceptor authInterceptor,
+            @Value("${allegro.sync.offer-fetch-concurrency:8}") int offerFetchConcurrency,
+            @Value("${allegro.sync.mode:page}") SyncMode syncMode,
+            @Value("${allegro.sync.page-size:100}") int pageSize,
+            @Value("${allegro.sync.max-pages-per-run:50}") int maxPagesPerRun,
+            @Value("${allegro.sync.max-run-duration:2m}") Duration maxRunDuration,
+            @Value("${allegro.sync.chunk-size:25}") int chunkSize,
+            @Value("${allegro.sync.buffered-chunks:4}") int bufferedChunks,
+            @Value("${allegro.sync.account-concurrency:4}") int accountConcurrency,
+            @Value("${allegro.sync.enrich-concurrency:2}") int enrichConcurrency,
+            @Value("${allegro.sync.persist-batch-size:100}") int persistBatchSize
     ) {
-        this.authService = auth;
         this.orderService = orderSvc;
         this.attributeParser = parser;
-        this.apiClient = clientBuilder.baseUrl("https://api.allegro.pl").build();
+        this.checkoutFormMapper = checkoutFormMapper;
+        this.offerCache = offerCache;
+        this.metrics = metrics;
+        this.systemSettingRepository = settingRepository;
+        this.accountRegistry = accountRegistry;
+        this.leaseService = leaseService;
+        this.accountConcurrency = Math.max(1, accountConcurrency);
+        this.accountExecutor = Executors.newFixedThreadPool(this.accountConcurrency,
+                Thread.ofPlatform().name("allegro-sync-", 0).factory());
+        this.offerFetchConcurrency = Math.max(1, offerFetchConcurrency);
+        this.syncMode = syncMode;
+        this.pageSize = pageSize;
+        this.maxPagesPerRun = maxPagesPerRun;
+        this.maxRunDuration = maxRunDuration;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.bufferedChunks = Math.max(1, bufferedChunks);
+        this.enrichConcurrency = Math.max(1, enrichConcurrency);
+        this.persistBatchSize = Math.max(1, persistBatchSize);
+        this.jsonMapper = jsonMapper;
+        this.apiClient = clientBuilder.clone()
+                .baseUrl("https://api.allegro.pl")
+                .defaultHeader(HttpHeaders.ACCEPT, "application/vnd.allegro.public.v1+json")
+                .requestInterceptor(throttlingInterceptor)
+                .requestInterceptor(authInterceptor)
+                .build();
     }
 
     @Scheduled(fixedDelay = 180_000)
     public void syncOrders() {
-        try {
-            String token = authService.getAccessToken();
-            List<CheckoutForm> allOrders = fetchAllOrders(token);
-            if (allOrders.isEmpty()) {
-                log.debug("No orders to sync");
+        List<AllegroAccount> accounts = accountRegistry.accounts();
+        int start = Math.floorMod(dispatchRound++, accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            AllegroAccount account = accounts.get((start + i) % accounts.size());
+            if (runningAccounts.size() >= accountConcurrency) {
+                log.debug("All {} sync slots on this node are busy, leaving remaining accounts to other nodes", accountConcurrency);
                 return;
             }
-            Collections.reverse(allOrders);
-            log.info("Found {} orders to sync (processing oldest first)", allOrders.size());
-            for (CheckoutForm form : allOrders) {
-                processSingleOrder(form, token);
+            if (runningAccounts.contains(account)) {
+                log.debug("Sync for account {} is still running, skipping this round", account.code());
+                continue;
+            }
+            if (!acquireLease(account)) {
+                continue;
+            }
+            lostLeases.remove(account);
+            runningAccounts.add(account);
+            try {
+                accountExecutor.execute(() -> syncAccount(account));
+            } catch (RejectedExecutionException e) {
+                releaseLease(account);
+                runningAccounts.remove(account);
+                log.warn("Could not schedule sync for account {}: {}", account.code(), e.getMessage());
             }
-        } catch (Exception e) {
-            log.error("Error during Allegro order sync: {}", e.getMessage());
         }
     }
 
-    private List<CheckoutForm> fetchAllOrders(String token) {
-        List<CheckoutForm> allOrders = new ArrayList<>();
-        for (int page = 0; page < MAX_PAGES; page++) {
-            int offset = page * SYNC_LIMIT;
-            CheckoutFormsResponse response = fetchOrdersPage(token, offset);
-            if (response == null || response.checkoutForms() == null || response.checkoutForms().isEmpty()) {
-                break;
-            }
-            allOrders.addAll(response.checkoutForms());
-            log.debug("Fetched {} orders at offset {} (total: {})", response.checkoutForms().size(), offset, allOrders.size());
-            if (response.checkoutForms().size() < SYNC_LIMIT) {
-                break;
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void renewLeases() {
+        for (AllegroAccount account : runningAccounts) {
+            try {
+                if (!leaseService.renew(leaseName(account))) {
+                    lostLeases.add(account);
+                    log.warn("Lost sync lease for account {}, stopping the run after the current page", account.code());
+                }
+            } catch (Exception e) {
+                lostLeases.add(account);
+                log.warn("Could not renew sync lease for account {}, stopping the run after the current page: {}",
+                        account.code(), e.getMessage());
             }
         }
-        return allOrders;
     }
 
-    private CheckoutFormsResponse fetchOrdersPage(String token, int offset) {
-        return apiClient.get()
-                .uri("/order/checkout-forms?status=READY_FOR_PROCESSING&sort=-lineItems.boughtAt&limit=" + SYNC_LIMIT + "&offset=" + offset)
-                .headers(h -> {
-                    h.setBearerAuth(token);
-                    h.set("Accept", "application/vnd.allegro.public.v1+json");
-                })
-                .retrieve()
-                .body(CheckoutFormsResponse.class);
+    @PreDestroy
+    public void shutdown() {
+        accountExecutor.shutdownNow();
     }
 
-    private void processSingleOrder(CheckoutForm form, String token) {
+    void syncAccount(AllegroAccount account) {
+        Timer.Sample run = metrics.startRun();
+        boolean success = false;
         try {
-            log.debug("Processing order: {}", form.id());
-            List<OrderItemRequest> items = buildOrderItems(form, token);
-            LocalDateTime boughtAt = extractBoughtAt(form);
-            Address shippingAddress = extractShippingAddress(form);
-            BuyerInfo buyerInfo = extractBuyerInfo(form, shippingAddress);
-            PaymentInfo paymentInfo = extractPaymentInfo(form);
-            DeliveryInfo deliveryInfo = extractDeliveryInfo(form);
-            InvoiceInfo invoiceInfo = extractInvoiceInfo(form);
-            CreateOrderRequest req = new CreateOrderRequest(
-                    form.id(),
-                    buyerInfo.email(),
-                    boughtAt,
-                    buyerInfo.phone(),
-                    buyerInfo.username(),
-                    buyerInfo.isGuest(),
-                    shippingAddress,
-                    paymentInfo.totalAmount(),
-                    paymentInfo.currency(),
-                    paymentInfo.paymentAt(),
-                    deliveryInfo.shippingCost(),
-                    deliveryInfo.shippingCostCurrency(),
-                    deliveryInfo.methodId(),
-                    deliveryInfo.methodName(),
-                    deliveryInfo.pickupPointId(),
-                    deliveryInfo.isSmart(),
-                    invoiceInfo.needsInvoice(),
-                    invoiceInfo.details(),
-                    form.note(),
-                    items
-            );
-            Order savedOrder = orderService.createOrder(req);
-            logOrderResult(form, savedOrder);
-        } catch (DataIntegrityViolationException e) {
-            log.debug("Order {} already exists (constraint violation), skipping", form.id());
+            success = syncMode == SyncMode.EVENTS ? syncFromEvents(account) : syncFromPages(account);
         } catch (Exception e) {
-            log.error("Error processing order {}: {}", form.id(), e.getMessage(), e);
+            log.error("Error during Allegro order sync for account {}: {}", account.code(), e.getMessage());
+        } finally {
+            releaseLease(account);
+            runningAccounts.remove(account);
+            lostLeases.remove(account);
+            metrics.stopRun(run, syncMode.name().toLowerCase(Locale.ROOT), account.code(), success);
         }
     }
 
-    private List<OrderItemRequest> buildOrderItems(CheckoutForm form, String token) {
-        List<OrderItemRequest> items = new ArrayList<>();
-        if (form.lineItems() == null) {
-            return items;
-        }
-        for (LineItem lineItem : form.lineItems()) {
-            if (lineItem.offer() == null) continue;
-            Map<String, Object> attributes = fetchOfferAttributes(lineItem.offer().id(), token);
-            String name = lineItem.offer().name() != null ? lineItem.offer().name() : "Unknown";
-            BigDecimal price = extractPrice(lineItem.price());
-            String currency = extractCurrency(lineItem.price());
-            items.add(new OrderItemRequest(lineItem.offer().id(), name, lineItem.quantity(), price, currency, attributes));
+    private boolean acquireLease(AllegroAccount account) {
+        try {
+            if (leaseService.tryAcquire(leaseName(account))) {
+                return true;
+            }
+            log.debug("Sync for account {} is running on another node", account.code());
+        } catch (Exception e) {
+            log.warn("Could not acquire sync lease for account {}: {}", account.code(), e.getMessage());
         }
-        return items;
+        return false;
     }
 
-    private Map<String, Object> fetchOfferAttributes(String offerId, String token) {
+    private void releaseLease(AllegroAccount account) {
         try {
-            AllegroOfferDetails details = apiClient.get()
-                    .uri("/sale/product-offers/" + offerId)
-                    .headers(h -> {
-                        h.setBearerAuth(token);
-                        h.set("Accept", "application/vnd.allegro.public.v1+json");
-                    })
-                    .retrieve()
-                    .body(AllegroOfferDetails.class);
-            return details != null ? attributeParser.extractAttributes(details) : Map.of();
+            leaseService.release(leaseName(account));
         } catch (Exception e) {
-            log.warn("Could not fetch offer details for {}: {}", offerId, e.getMessage());
-            return Map.of();
+            log.warn("Could not release sync lease for account {}, it will expire: {}", account.code(), e.getMessage());
         }
     }
 
-    private LocalDateTime extractBoughtAt(CheckoutForm form) {
-        if (form.lineItems() == null) {
-            return LocalDateTime.now();
-        }
-        Instant earliest = form.lineItems().stream()
-                .filter(item -> item.boughtAt() != null)
-                .map(LineItem::boughtAt)
-                .min(Instant::compareTo)
-                .orElse(null);
-        return earliest != null ? LocalDateTime.ofInstant(earliest, ZoneId.systemDefault()) : LocalDateTime.now();
+    private static String leaseName(AllegroAccount account) {
+        return LEASE_PREFIX + account.code();
     }
 
-    private Address extractShippingAddress(CheckoutForm form) {
-        Address address = new Address();
-        if (form.delivery() != null && form.delivery().address() != null) {
-            CheckoutForm.DeliveryAddress addr = form.delivery().address();
-            address.setFirstName(addr.firstName());
-            address.setLastName(addr.lastName());
-            address.setStreet(addr.street());
-            address.setCity(addr.city());
-            address.setZipCode(addr.zipCode());
-            address.setCountryCode(addr.countryCode() != null ? addr.countryCode() : "PL");
-            address.setPhoneNumber(addr.phoneNumber());
-        }
-        return address;
+    private boolean syncFromPages(AllegroAccount account) {
+        return syncPages(account).succeeded();
     }
 
-    private BuyerInfo extractBuyerInfo(CheckoutForm form, Address shippingAddress) {
-        final String deliveryPhone = shippingAddress.getPhoneNumber() != null ? shippingAddress.getPhoneNumber() : "";
-
-        if (form.buyer() == null) {
-            return new BuyerInfo("", "", null, deliveryPhone);
+    private PageSync syncPages(AllegroAccount account) {
+        long deadline = System.nanoTime() + maxRunDuration.toNanos();
+        Instant watermark = loadPageWatermark(account);
+        List<PageMark> streamed = new ArrayList<>();
+        AtomicBoolean complete = new AtomicBoolean();
+        OrderSyncPipeline.Result result = newPipeline(account).run(sink -> complete.set(streamPages(account, watermark, chunk -> {
+            chunk.forEach(form -> streamed.add(new PageMark(form.id(), checkoutFormMapper.parseUpdatedAt(form))));
+            sink.accept(chunk);
+        }, deadline)));
+        if (result.forms() == 0) {
+            log.debug("No orders to sync for account {}", account.code());
         }
-
-        final String email = form.buyer().email() != null ? form.buyer().email() : "";
-        final String username = form.buyer().login() != null ? form.buyer().login() : "";
-        final Boolean isGuest = form.buyer().guest();
-        final String buyerPhone = form.buyer().phoneNumber() != null ? form.buyer().phoneNumber() : "";
-
-        if (shippingAddress.getCompanyName() == null && form.buyer().companyName() != null) {
-            shippingAddress.setCompanyName(form.buyer().companyName());
+        Instant next = nextPageWatermark(streamed, result.failedOrderIds(), watermark);
+        if (next != null && !next.equals(watermark)) {
+            systemSettingRepository.save(new SystemSetting(account.settingKey(PAGE_WATERMARK_SETTING), next.toString()));
         }
-
-        final String phone = !deliveryPhone.isEmpty() ? deliveryPhone : buyerPhone;
-        return new BuyerInfo(email, username, isGuest, phone);
+        if (!result.succeeded()) {
+            log.warn("{} orders for account {} were not synced, holding the page watermark at {} to retry",
+                    result.failedOrderIds().size(), account.code(), next);
+        }
+        return new PageSync(result.succeeded(), complete.get());
     }
 
-    private PaymentInfo extractPaymentInfo(CheckoutForm form) {
-        final BigDecimal totalAmount;
-        final String currency;
-        if (form.summary() != null && form.summary().totalToPay() != null) {
-            totalAmount = extractPrice(form.summary().totalToPay());
-            currency = extractCurrency(form.summary().totalToPay());
-        } else {
-            totalAmount = BigDecimal.ZERO;
-            currency = DEFAULT_CURRENCY;
+    static Instant nextPageWatermark(List<PageMark> streamed, Set<String> failedFormIds, Instant current) {
+        Instant next = current;
+        for (PageMark mark : streamed) {
+            if (mark.updatedAt() == null) {
+                continue;
+            }
+            if (failedFormIds.contains(mark.checkoutFormId())) {
+                return mark.updatedAt();
+            }
+            if (next == null || mark.updatedAt().isAfter(next)) {
+                next = mark.updatedAt();
+            }
         }
+        return next;
+    }
 
-        final LocalDateTime paymentAt;
-        if (form.payment() != null && form.payment().finishedAt() != null) {
-            paymentAt = LocalDateTime.ofInstant(form.payment().finishedAt(), ZoneId.systemDefault());
-        } else {
-            paymentAt = null;
+    private Instant loadPageWatermark(AllegroAccount account) {
+        Optional<String> value = systemSettingRepository.findById(account.settingKey(PAGE_WATERMARK_SETTING))
+                .map(SystemSetting::getSettingValue)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty());
+        try {
+            return value.map(Instant::parse).orElse(null);
+        } catch (DateTimeParseException e) {
+            log.warn("Ignoring unparseable page watermark {} for account {}", value.get(), account.code());
+            return null;
         }
+    }
 
-        return new PaymentInfo(totalAmount, currency, paymentAt);
+    private OrderSyncPipeline newPipeline(AllegroAccount account) {
+        return new OrderSyncPipeline(
+                account.code(),
+                enrichConcurrency,
+                bufferedChunks,
+                persistBatchSize,
+                forms -> enrichOrders(account, forms),
+                batch -> orderService.applySourceChanges(batch.updates(), batch.requests(), batch.revisions()),
+                this::logOrderResult,
+                metrics);
     }
 
-    private DeliveryInfo extractDeliveryInfo(CheckoutForm form) {
-        if (form.delivery() == null) {
-            return new DeliveryInfo(BigDecimal.ZERO, DEFAULT_CURRENCY, null, null, null, null);
+    private boolean streamPages(AllegroAccount account, Instant watermark, OrderSyncPipeline.ChunkSink sink, long deadline) {
+        int offset = 0;
+        int pages = 0;
+        while (true) {
+            int read = streamOrdersPage(account, watermark, offset, sink);
+            pages++;
+            offset += read;
+            if (read < pageSize) {
+                return true;
+            }
+            if (lostLeases.contains(account)) {
+                log.warn("Stopping page sync for account {} after {} pages, its lease is no longer held", account.code(), pages);
+                return false;
+            }
+            if (pages >= maxPagesPerRun || System.nanoTime() >= deadline) {
+                log.info("Sync budget for account {} reached after {} pages, remaining orders will be picked up next run",
+                        account.code(), pages);
+                return false;
+            }
         }
+    }
 
-        final Boolean isSmart = form.delivery().smart();
-
-        final BigDecimal shippingCost;
-        final String shippingCostCurrency;
-        if (form.delivery().cost() != null) {
-            shippingCost = extractPrice(form.delivery().cost());
-            shippingCostCurrency = extractCurrency(form.delivery().cost());
-        } else {
-            shippingCost = BigDecimal.ZERO;
-            shippingCostCurrency = DEFAULT_CURRENCY;
+    private boolean syncFromEvents(AllegroAccount account) {
+        Optional<String> cursor = systemSettingRepository.findById(account.settingKey(EVENT_CURSOR_SETTING))
+                .map(SystemSetting::getSettingValue)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty());
+        if (cursor.isEmpty()) {
+            return bootstrapEventCursor(account);
         }
+        String lastEventId = cursor.get();
+        for (int batch = 0; batch < MAX_EVENT_BATCHES; batch++) {
+            OrderEventsResponse response = fetchOrderEvents(account, lastEventId);
+            if (response == null || response.events() == null || response.events().isEmpty()) {
+                log.debug("No new order events for account {} after {}", account.code(), lastEventId);
+                return true;
+            }
+            List<OrderEvent> events = response.events();
+            Set<String> changedFormIds = new LinkedHashSet<>();
+            for (OrderEvent event : events) {
+                if (event.order() != null && event.order().checkoutForm() != null && event.order().checkoutForm().id() != null) {
+                    changedFormIds.add(event.order().checkoutForm().id());
+                }
+            }
+            Map<String, CheckoutForm> fetched = fetchConcurrently(changedFormIds, id -> fetchCheckoutForm(account, id));
+            List<CheckoutForm> forms = changedFormIds.stream()
+                    .map(fetched::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            log.info("Processing {} order events for account {} ({} changed checkout forms)",
+                    events.size(), account.code(), forms.size());
+            OrderSyncPipeline.Result result = newPipeline(account).run(sink -> {
+                for (int from = 0; from < forms.size(); from += chunkSize) {
+                    sink.accept(forms.subList(from, Math.min(forms.size(), from + chunkSize)));
+                }
+            });
+            Set<String> failed = new HashSet<>(result.failedOrderIds());
+            changedFormIds.stream().filter(id -> !fetched.containsKey(id)).forEach(failed::add);
+            String processedEventId = lastProcessedEventId(events, failed);
+            if (processedEventId != null) {
+                lastEventId = processedEventId;
+                saveEventCursor(account, lastEventId);
+            }
+            if (!failed.isEmpty()) {
+                log.warn("{} changed checkout forms for account {} were not synced, keeping event cursor at {} to retry",
+                        failed.size(), account.code(), lastEventId);
+                return false;
+            }
+            if (events.size() < EVENTS_LIMIT) {
+                return true;
+            }
+            if (lostLeases.contains(account)) {
+                log.warn("Stopping event sync for account {} at {}, its lease is no longer held", account.code(), lastEventId);
+                return true;
+            }
+        }
+        return true;
+    }
 
-        final String methodId;
-        final String methodName;
-        if (form.delivery().method() != null) {
-            methodId = form.delivery().method().id();
-            methodName = form.delivery().method().name();
-        } else {
-            methodId = null;
-            methodName = null;
+    static String lastProcessedEventId(List<OrderEvent> events, Set<String> failedFormIds) {
+        String processed = null;
+        for (OrderEvent event : events) {
+            if (event.order() != null && event.order().checkoutForm() != null
+                    && failedFormIds.contains(event.order().checkoutForm().id())) {
+                break;
+            }
+            processed = event.id();
         }
+        return processed;
+    }
 
-        final String pickupPointId;
-        if (form.delivery().pickupPoint() != null) {
-            pickupPointId = form.delivery().pickupPoint().id();
-        } else {
-            pickupPointId = null;
+    private boolean bootstrapEventCursor(AllegroAccount account) {
+        OrderEventStats stats = apiClient.get()
+                .uri("/order/event-stats")
+                .attribute(AllegroAccount.REQUEST_ATTRIBUTE, account)
+                .retrieve()
+                .body(OrderEventStats.class);
+        log.info("No order event cursor stored for account {}, running full page sync before switching to events",
+                account.code());
+        PageSync pages = syncPages(account);
+        if (!pages.succeeded() || !pages.complete()) {
+            log.warn("Page sync for account {} did not cover the whole backlog, leaving the event cursor unset to bootstrap again",
+                    account.code());
+            return false;
+        }
+        if (stats != null && stats.latestEvent() != null && stats.latestEvent().id() != null) {
+            saveEventCursor(account, stats.latestEvent().id());
         }
+        return true;
+    }
 
-        return new DeliveryInfo(shippingCost, shippingCostCurrency, methodId, methodName, pickupPointId, isSmart);
+    private void saveEventCursor(AllegroAccount account, String eventId) {
+        systemSettingRepository.save(new SystemSetting(account.settingKey(EVENT_CURSOR_SETTING), eventId));
     }
 
-    private InvoiceInfo extractInvoiceInfo(CheckoutForm form) {
-        if (form.invoice() == null) {
-            return new InvoiceInfo(null, null);
+    private OrderEventsResponse fetchOrderEvents(AllegroAccount account, String fromEventId) {
+        return apiClient.get()
+                .uri("/order/events?from={from}&type=READY_FOR_PROCESSING&type=BUYER_MODIFIED"
+                        + "&type=BUYER_CANCELLED&type=AUTO_CANCELLED&limit={limit}", fromEventId, EVENTS_LIMIT)
+                .attribute(AllegroAccount.REQUEST_ATTRIBUTE, account)
+                .retrieve()
+                .body(OrderEventsResponse.class);
+    }
+
+    private CheckoutForm fetchCheckoutForm(AllegroAccount account, String checkoutFormId) {
+        try {
+            return apiClient.get()
+                    .uri("/order/checkout-forms/{id}", checkoutFormId)
+                    .attribute(AllegroAccount.REQUEST_ATTRIBUTE, account)
+                    .retrieve()
+                    .body(CheckoutForm.class);
+        } catch (Exception e) {
+            log.warn("Could not fetch checkout form {}: {}", checkoutFormId, e.getMessage());
+            return null;
         }
+    }
 
-        final Boolean needsInvoice = form.invoice().required();
-        final InvoiceDetails details = extractInvoiceDetails(form.invoice());
+    private OrderSyncPipeline.PersistBatch enrichOrders(AllegroAccount account, List<CheckoutForm> forms) {
+        log.info("Processing {} orders for account {}", forms.size(), account.code());
+        metrics.ordersFetched(forms.size());
+        Map<String, OrderSourceState> known = orderService.findSourceStates(forms.stream()
+                .map(CheckoutForm::id)
+                .filter(Objects::nonNull)
+                .toList());
+        List<CheckoutForm> newForms = new ArrayList<>();
+        List<SourceOrderUpdate> updates = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        for (CheckoutForm form : forms) {
+            OrderSourceState state = known.get(form.id());
+            if (state == null) {
+                if (READY_FOR_PROCESSING.equals(form.status())) {
+                    newForms.add(form);
+                }
+            } else {
+                toSourceUpdate(account, form, state, rejected).ifPresent(updates::add);
+            }
+        }
+        int unchanged = forms.size() - newForms.size() - updates.size() - rejected.size();
+        metrics.ordersSkipped(unchanged);
+        if (unchanged > 0) {
+            log.debug("Skipping {} of {} orders already in sync with Allegro", unchanged, forms.size());
+        }
+        List<CreateOrderRequest> requests = new ArrayList<>(newForms.size());
+        Map<String, SourceRevision> revisions = new HashMap<>();
+        if (!newForms.isEmpty()) {
+            Map<String, Map<String, Object>> offerAttributes = resolveOfferAttributes(account, newForms);
+            for (CheckoutForm form : newForms) {
+                if (!offersResolved(form, offerAttributes)) {
+                    log.warn("Offer details for order {} could not be fetched, leaving it for the next run", form.id());
+                    rejected.add(form.id());
+                    continue;
+                }
+                CreateOrderRequest request = toCreateOrderRequest(form, offerAttributes);
+                if (request != null) {
+                    requests.add(request);
+                    revisions.put(form.id(), checkoutFormMapper.toSourceRevision(account, form, request));
+                } else {
+                    rejected.add(form.id());
+                }
+            }
+        }
+        metrics.ordersFailed(rejected.size());
+        OfferAttributesCache.CacheStats stats = offerCache.stats();
+        log.debug("Offer cache: {} hits, {} misses, {} evictions, {} entries",
+                stats.hits(), stats.misses(), stats.evictions(), stats.size());
+        return new OrderSyncPipeline.PersistBatch(updates, requests, revisions, rejected);
+    }
 
-        return new InvoiceInfo(needsInvoice, details);
+    private Optional<SourceOrderUpdate> toSourceUpdate(
+            AllegroAccount account,
+            CheckoutForm form,
+            OrderSourceState state,
+            List<String> rejected
+    ) {
+        if (state.sourceUpdatedAt() != null && state.sourceUpdatedAt().equals(checkoutFormMapper.parseUpdatedAt(form))) {
+            return Optional.empty();
+        }
+        CreateOrderRequest request = toCreateOrderRequest(form, Map.of());
+        if (request == null) {
+            rejected.add(form.id());
+            return Optional.empty();
+        }
+        SourceRevision revision = checkoutFormMapper.toSourceRevision(account, form, request);
+        if (revision.fingerprint().equals(state.sourceFingerprint())) {
+            return Optional.empty();
+        }
+        return Optional.of(new SourceOrderUpdate(request, revision));
     }
 
-    private InvoiceDetails extractInvoiceDetails(CheckoutForm.Invoice invoice) {
-        if (!invoice.required() || invoice.address() == null) {
-            return null;
+    private int streamOrdersPage(AllegroAccount account, Instant watermark, int offset, OrderSyncPipeline.ChunkSink sink) {
+        String uri = "/order/checkout-forms?status={status}&sort={sort}&limit={limit}&offset={offset}";
+        Map<String, Object> variables = new HashMap<>(Map.of(
+                "status", READY_FOR_PROCESSING, "sort", "updatedAt", "limit", pageSize, "offset", offset));
+        if (watermark != null) {
+            uri += "&updatedAt.gte={updatedAtFrom}";
+            variables.put("updatedAtFrom", watermark.toString());
         }
+        Integer read = apiClient.get()
+                .uri(uri, variables)
+                .attribute(AllegroAccount.REQUEST_ATTRIBUTE, account)
+                .exchange((request, response) -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        throw new RestClientException("Unexpected status " + response.getStatusCode().value());
+                    }
+                    return readCheckoutForms(response.getBody(), sink);
+                });
+        log.debug("Fetched {} orders for account {} at offset {}", read, account.code(), offset);
+        return read != null ? read : 0;
+    }
 
-        final InvoiceDetails details = new InvoiceDetails();
-        details.setNeedsInvoice(true);
+    private int readCheckoutForms(InputStream body, OrderSyncPipeline.ChunkSink sink) throws IOException {
+        int read = 0;
+        List<CheckoutForm> chunk = new ArrayList<>(chunkSize);
+        try (JsonParser parser = jsonMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return 0;
+            }
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY || !"checkoutForms".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    chunk.add(jsonMapper.readValue(parser, CheckoutForm.class));
+                    read++;
+                    if (chunk.size() == chunkSize) {
+                        putChunk(sink, chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            putChunk(sink, chunk);
+        }
+        return read;
+    }
 
-        final CheckoutForm.InvoiceAddress addr = invoice.address();
-        details.setStreet(addr.street());
-        details.setCity(addr.city());
-        details.setZipCode(addr.zipCode());
-        details.setCountryCode(addr.countryCode());
+    private void putChunk(OrderSyncPipeline.ChunkSink sink, List<CheckoutForm> chunk) throws IOException {
+        try {
+            sink.accept(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while buffering checkout forms");
+        }
+    }
 
-        if (addr.company() != null) {
-            details.setCompanyName(addr.company().name());
-            details.setTaxId(addr.company().taxId());
+    private Map<String, Map<String, Object>> resolveOfferAttributes(AllegroAccount account, List<CheckoutForm> forms) {
+        Set<String> offerIds = new LinkedHashSet<>();
+        for (CheckoutForm form : forms) {
+            if (form.lineItems() == null) continue;
+            for (LineItem lineItem : form.lineItems()) {
+                if (lineItem.offer() != null && lineItem.offer().id() != null) {
+                    offerIds.add(lineItem.offer().id());
+                }
+            }
+        }
+        Map<String, Map<String, Object>> resolved = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String offerId : offerIds) {
+            offerCache.get(offerId).ifPresentOrElse(attrs -> resolved.put(offerId, attrs), () -> missing.add(offerId));
         }
+        if (!missing.isEmpty()) {
+            log.debug("Resolving {} distinct offers ({} cached, {} to fetch)", offerIds.size(), resolved.size(), missing.size());
+            resolved.putAll(fetchConcurrently(missing, offerId -> loadOfferAttributes(account, offerId)));
+        }
+        return resolved;
+    }
 
-        return details;
+    private static boolean offersResolved(CheckoutForm form, Map<String, Map<String, Object>> offerAttributes) {
+        if (form.lineItems() == null) {
+            return true;
+        }
+        for (LineItem lineItem : form.lineItems()) {
+            if (lineItem.offer() != null && lineItem.offer().id() != null && !offerAttributes.containsKey(lineItem.offer().id())) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private BigDecimal extractPrice(Price price) {
-        if (price == null || price.amount() == null) {
-            return BigDecimal.ZERO;
+    private <T> Map<String, T> fetchConcurrently(Collection<String> keys, Function<String, T> loader) {
+        Map<String, T> results = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(offerFetchConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String key : keys) {
+                executor.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        T value = loader.apply(key);
+                        if (value != null) {
+                            results.put(key, value);
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
         }
-        return new BigDecimal(price.amount());
+        return results;
     }
 
-    private String extractCurrency(Price price) {
-        if (price == null || price.currency() == null) {
-            return DEFAULT_CURRENCY;
+    private CreateOrderRequest toCreateOrderRequest(CheckoutForm form, Map<String, Map<String, Object>> offerAttributes) {
+        try {
+            log.debug("Processing order: {}", form.id());
+            return checkoutFormMapper.toCreateOrderRequest(form, offerAttributes);
+        } catch (Exception e) {
+            log.error("Error processing order {}: {}", form.id(), e.getMessage(), e);
+            return null;
         }
-        return price.currency();
     }
 
-    private void logOrderResult(CheckoutForm form, Order savedOrder) {
-        if (savedOrder != null && savedOrder.getCreatedAt() != null
-                && savedOrder.getCreatedAt().isBefore(LocalDateTime.now().minusSeconds(5))) {
-            log.debug("Order {} already exists (customId: {}), skipping", form.id(), savedOrder.getCustomId());
-        } else {
-            log.info("Successfully synced NEW order: {} (customId: {})",
-                    form.id(), savedOrder != null ? savedOrder.getCustomId() : "N/A");
+    private Map<String, Object> loadOfferAttributes(AllegroAccount account, String offerId) {
+        try {
+            Map<String, Object> attributes = apiClient.get()
+                    .uri("/sale/product-offers/{offerId}", offerId)
+                    .attribute(AllegroAccount.REQUEST_ATTRIBUTE, account)
+                    .exchange((request, response) -> {
+                        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)) {
+                            log.warn("Offer {} no longer exists, storing its items without attributes", offerId);
+                            return Map.<String, Object>of();
+                        }
+                        if (!response.getStatusCode().is2xxSuccessful()) {
+                            throw new RestClientException("Unexpected status " + response.getStatusCode().value());
+                        }
+                        return attributeParser.extractAttributes(response.getBody());
+                    });
+            offerCache.put(offerId, attributes);
+            return attributes;
+        } catch (Exception e) {
+            log.warn("Could not fetch offer details for {}: {}", offerId, e.getMessage());
+            return null;
         }
     }
 
-    private record BuyerInfo(String email, String username, Boolean isGuest, String phone) {
+    private void logOrderResult(BatchOrderResult result) {
+        switch (result.status()) {
+            case CREATED -> {
+                metrics.ordersCreated(1);
+                log.info("Successfully synced NEW order: {} (customId: {})", result.externalOrderId(), result.customId());
+            }
+            case UPDATED -> {
+                metrics.ordersUpdated(1);
+                log.info("Updated order {} from Allegro changes (customId: {})", result.externalOrderId(), result.customId());
+            }
+            case DUPLICATE -> {
+                metrics.ordersSkipped(1);
+                log.debug("Order {} already exists, skipping", result.externalOrderId());
+            }
+            case INVALID -> {
+                metrics.ordersFailed(1);
+                log.warn("Order {} rejected: {}", result.externalOrderId(), result.message());
+            }
+        }
     }
 
-    private record PaymentInfo(BigDecimal totalAmount, String currency, LocalDateTime paymentAt) {
+    record PageMark(String checkoutFormId, Instant updatedAt) {
     }
 
-    private record DeliveryInfo(BigDecimal shippingCost, String shippingCostCurrency, String methodId,
-                                String methodName, String pickupPointId, Boolean isSmart) {
+    private record PageSync(boolean succeeded, boolean complete) {
     }
 
-    private record InvoiceInfo(Boolean needsInvoice, InvoiceDetails details) {
+    enum SyncMode {
+        PAGE, EVENTS
     }
 }
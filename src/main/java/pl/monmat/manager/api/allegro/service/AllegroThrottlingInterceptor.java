@@ -0,0 +1,101 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+@Component
+public class AllegroThrottlingInterceptor implements ClientHttpRequestInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(AllegroThrottlingInterceptor.class);
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+    private final AllegroRateLimiter rateLimiter;
+    private final AllegroSyncMetrics metrics;
+    private final int maxRetries;
+
+    public AllegroThrottlingInterceptor(
+            AllegroRateLimiter rateLimiter,
+            AllegroSyncMetrics metrics,
+            @Value("${allegro.rate-limit.max-retries:3}") int maxRetries
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            acquirePermit();
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException | RuntimeException e) {
+                rateLimiter.onFailure();
+                throw e;
+            }
+            HttpStatusCode status = response.getStatusCode();
+            if (!status.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS) && !status.isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE)) {
+                rateLimiter.onSuccess();
+                return response;
+            }
+            Duration retryAfter = retryAfter(response.getHeaders(), attempt);
+            rateLimiter.onThrottled(retryAfter);
+            if (attempt >= maxRetries) {
+                log.warn("{} {} still throttled ({}) after {} retries", request.getMethod(), request.getURI().getPath(),
+                        status.value(), maxRetries);
+                return response;
+            }
+            response.close();
+            log.info("{} {} throttled ({}), retrying in {} ms", request.getMethod(), request.getURI().getPath(),
+                    status.value(), retryAfter.toMillis());
+        }
+    }
+
+    private void acquirePermit() throws InterruptedIOException {
+        long start = System.nanoTime();
+        try {
+            rateLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Allegro rate limit permit");
+        } finally {
+            metrics.throttleWaited(System.nanoTime() - start);
+        }
+    }
+
+    private Duration retryAfter(HttpHeaders headers, int attempt) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value != null) {
+            try {
+                return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+            } catch (NumberFormatException ignored) {
+                try {
+                    Instant retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                    Duration untilRetry = Duration.between(Instant.now(), retryAt);
+                    return untilRetry.isNegative() ? Duration.ZERO : untilRetry;
+                } catch (DateTimeParseException e) {
+                    log.debug("Unparseable Retry-After header: {}", value);
+                }
+            }
+        }
+        Duration backoff = BASE_BACKOFF.multipliedBy(1L << Math.min(attempt, 6));
+        return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+    }
+}
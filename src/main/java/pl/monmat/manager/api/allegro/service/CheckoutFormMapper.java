@@ -0,0 +1,260 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.springframework.stereotype.Component;
+import pl.monmat.manager.api.allegro.api.CheckoutForm;
+import pl.monmat.manager.api.allegro.api.LineItem;
+import pl.monmat.manager.api.allegro.api.Price;
+import pl.monmat.manager.api.common.model.Address;
+import pl.monmat.manager.api.common.model.InvoiceDetails;
+import pl.monmat.manager.api.order.OrderFingerprint;
+import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+import pl.monmat.manager.api.order.dto.OrderItemRequest;
+import pl.monmat.manager.api.order.dto.SourceRevision;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+class CheckoutFormMapper {
+    private static final String DEFAULT_CURRENCY = "PLN";
+    private static final String CANCELLED = "CANCELLED";
+
+    CreateOrderRequest toCreateOrderRequest(CheckoutForm form, Map<String, Map<String, Object>> offerAttributes) {
+        List<OrderItemRequest> items = buildOrderItems(form, offerAttributes);
+        LocalDateTime boughtAt = extractBoughtAt(form);
+        Address shippingAddress = extractShippingAddress(form);
+        BuyerInfo buyerInfo = extractBuyerInfo(form, shippingAddress);
+        PaymentInfo paymentInfo = extractPaymentInfo(form);
+        DeliveryInfo deliveryInfo = extractDeliveryInfo(form);
+        InvoiceInfo invoiceInfo = extractInvoiceInfo(form);
+        return new CreateOrderRequest(
+                form.id(),
+                buyerInfo.email(),
+                boughtAt,
+                buyerInfo.phone(),
+                buyerInfo.username(),
+                buyerInfo.isGuest(),
+                shippingAddress,
+                paymentInfo.totalAmount(),
+                paymentInfo.currency(),
+                paymentInfo.paymentAt(),
+                deliveryInfo.shippingCost(),
+                deliveryInfo.shippingCostCurrency(),
+                deliveryInfo.methodId(),
+                deliveryInfo.methodName(),
+                deliveryInfo.pickupPointId(),
+                deliveryInfo.isSmart(),
+                invoiceInfo.needsInvoice(),
+                invoiceInfo.details(),
+                form.note(),
+                items
+        );
+    }
+
+    SourceRevision toSourceRevision(AllegroAccount account, CheckoutForm form, CreateOrderRequest request) {
+        boolean cancelled = CANCELLED.equals(form.status());
+        return new SourceRevision(account.code(), OrderFingerprint.of(request, cancelled), parseUpdatedAt(form), cancelled);
+    }
+
+    Instant parseUpdatedAt(CheckoutForm form) {
+        if (form.updatedAt() == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(form.updatedAt());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private List<OrderItemRequest> buildOrderItems(CheckoutForm form, Map<String, Map<String, Object>> offerAttributes) {
+        List<OrderItemRequest> items = new ArrayList<>();
+        if (form.lineItems() == null) {
+            return items;
+        }
+        for (LineItem lineItem : form.lineItems()) {
+            if (lineItem.offer() == null) continue;
+            Map<String, Object> attributes = offerAttributes.getOrDefault(lineItem.offer().id(), Map.of());
+            String name = lineItem.offer().name() != null ? lineItem.offer().name() : "Unknown";
+            BigDecimal price = extractPrice(lineItem.price());
+            String currency = extractCurrency(lineItem.price());
+            items.add(new OrderItemRequest(lineItem.offer().id(), name, lineItem.quantity(), price, currency, attributes));
+        }
+        return items;
+    }
+
+    Instant earliestBoughtAt(CheckoutForm form) {
+        if (form.lineItems() == null) {
+            return null;
+        }
+        return form.lineItems().stream()
+                .filter(item -> item.boughtAt() != null)
+                .map(LineItem::boughtAt)
+                .min(Instant::compareTo)
+                .orElse(null);
+    }
+
+    private LocalDateTime extractBoughtAt(CheckoutForm form) {
+        Instant earliest = earliestBoughtAt(form);
+        return earliest != null ? LocalDateTime.ofInstant(earliest, ZoneId.systemDefault()) : LocalDateTime.now();
+    }
+
+    private Address extractShippingAddress(CheckoutForm form) {
+        Address address = new Address();
+        if (form.delivery() != null && form.delivery().address() != null) {
+            CheckoutForm.DeliveryAddress addr = form.delivery().address();
+            address.setFirstName(addr.firstName());
+            address.setLastName(addr.lastName());
+            address.setStreet(addr.street());
+            address.setCity(addr.city());
+            address.setZipCode(addr.zipCode());
+            address.setCountryCode(addr.countryCode() != null ? addr.countryCode() : "PL");
+            address.setPhoneNumber(addr.phoneNumber());
+        }
+        return address;
+    }
+
+    private BuyerInfo extractBuyerInfo(CheckoutForm form, Address shippingAddress) {
+        final String deliveryPhone = shippingAddress.getPhoneNumber() != null ? shippingAddress.getPhoneNumber() : "";
+
+        if (form.buyer() == null) {
+            return new BuyerInfo("", "", null, deliveryPhone);
+        }
+
+        final String email = form.buyer().email() != null ? form.buyer().email() : "";
+        final String username = form.buyer().login() != null ? form.buyer().login() : "";
+        final Boolean isGuest = form.buyer().guest();
+        final String buyerPhone = form.buyer().phoneNumber() != null ? form.buyer().phoneNumber() : "";
+
+        if (shippingAddress.getCompanyName() == null && form.buyer().companyName() != null) {
+            shippingAddress.setCompanyName(form.buyer().companyName());
+        }
+
+        final String phone = !deliveryPhone.isEmpty() ? deliveryPhone : buyerPhone;
+        return new BuyerInfo(email, username, isGuest, phone);
+    }
+
+    private PaymentInfo extractPaymentInfo(CheckoutForm form) {
+        final BigDecimal totalAmount;
+        final String currency;
+        if (form.summary() != null && form.summary().totalToPay() != null) {
+            totalAmount = extractPrice(form.summary().totalToPay());
+            currency = extractCurrency(form.summary().totalToPay());
+        } else {
+            totalAmount = BigDecimal.ZERO;
+            currency = DEFAULT_CURRENCY;
+        }
+
+        final LocalDateTime paymentAt;
+        if (form.payment() != null && form.payment().finishedAt() != null) {
+            paymentAt = LocalDateTime.ofInstant(form.payment().finishedAt(), ZoneId.systemDefault());
+        } else {
+            paymentAt = null;
+        }
+
+        return new PaymentInfo(totalAmount, currency, paymentAt);
+    }
+
+    private DeliveryInfo extractDeliveryInfo(CheckoutForm form) {
+        if (form.delivery() == null) {
+            return new DeliveryInfo(BigDecimal.ZERO, DEFAULT_CURRENCY, null, null, null, null);
+        }
+
+        final Boolean isSmart = form.delivery().smart();
+
+        final BigDecimal shippingCost;
+        final String shippingCostCurrency;
+        if (form.delivery().cost() != null) {
+            shippingCost = extractPrice(form.delivery().cost());
+            shippingCostCurrency = extractCurrency(form.delivery().cost());
+        } else {
+            shippingCost = BigDecimal.ZERO;
+            shippingCostCurrency = DEFAULT_CURRENCY;
+        }
+
+        final String methodId;
+        final String methodName;
+        if (form.delivery().method() != null) {
+            methodId = form.delivery().method().id();
+            methodName = form.delivery().method().name();
+        } else {
+            methodId = null;
+            methodName = null;
+        }
+
+        final String pickupPointId;
+        if (form.delivery().pickupPoint() != null) {
+            pickupPointId = form.delivery().pickupPoint().id();
+        } else {
+            pickupPointId = null;
+        }
+
+        return new DeliveryInfo(shippingCost, shippingCostCurrency, methodId, methodName, pickupPointId, isSmart);
+    }
+
+    private InvoiceInfo extractInvoiceInfo(CheckoutForm form) {
+        if (form.invoice() == null) {
+            return new InvoiceInfo(null, null);
+        }
+
+        final Boolean needsInvoice = form.invoice().required();
+        final InvoiceDetails details = extractInvoiceDetails(form.invoice());
+
+        return new InvoiceInfo(needsInvoice, details);
+    }
+
+    private InvoiceDetails extractInvoiceDetails(CheckoutForm.Invoice invoice) {
+        if (!invoice.required() || invoice.address() == null) {
+            return null;
+        }
+
+        final InvoiceDetails details = new InvoiceDetails();
+        details.setNeedsInvoice(true);
+
+        final CheckoutForm.InvoiceAddress addr = invoice.address();
+        details.setStreet(addr.street());
+        details.setCity(addr.city());
+        details.setZipCode(addr.zipCode());
+        details.setCountryCode(addr.countryCode());
+
+        if (addr.company() != null) {
+            details.setCompanyName(addr.company().name());
+            details.setTaxId(addr.company().taxId());
+        }
+
+        return details;
+    }
+
+    private BigDecimal extractPrice(Price price) {
+        if (price == null || price.amount() == null) {
+            return BigDecimal.ZERO;
+        }
+        return new BigDecimal(price.amount());
+    }
+
+    private String extractCurrency(Price price) {
+        if (price == null || price.currency() == null) {
+            return DEFAULT_CURRENCY;
+        }
+        return price.currency();
+    }
+
+    private record BuyerInfo(String email, String username, Boolean isGuest, String phone) {
+    }
+
+    private record PaymentInfo(BigDecimal totalAmount, String currency, LocalDateTime paymentAt) {
+    }
+
+    private record DeliveryInfo(BigDecimal shippingCost, String shippingCostCurrency, String methodId,
+                                String methodName, String pickupPointId, Boolean isSmart) {
+    }
+
+    private record InvoiceInfo(Boolean needsInvoice, InvoiceDetails details) {
+    }
+}
@@ -0,0 +1,99 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+@Component
+public class OfferAttributesCache {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<String, CachedAttributes> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public OfferAttributesCache(
+            @Value("${allegro.offer-cache.max-size:2000}") int maxSize,
+            @Value("${allegro.offer-cache.ttl:6h}") Duration ttl
+    ) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    OfferAttributesCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("allegro.offer-cache.max-size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public synchronized Optional<Map<String, Object>> get(String offerId) {
+        CachedAttributes cached = entries.get(offerId);
+        if (cached == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (cached.isExpired(nanoClock.getAsLong())) {
+            entries.remove(offerId);
+            evictions.increment();
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(cached.attributes());
+    }
+
+    public synchronized void put(String offerId, Map<String, Object> attributes) {
+        long expiresAt = nanoClock.getAsLong() + ttlNanos;
+        entries.put(offerId, new CachedAttributes(Collections.unmodifiableMap(new HashMap<>(attributes)), expiresAt));
+        evictOverflow();
+    }
+
+    public synchronized void invalidate(String offerId) {
+        entries.remove(offerId);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    private void evictOverflow() {
+        Iterator<CachedAttributes> eldestFirst = entries.values().iterator();
+        while (entries.size() > maxSize && eldestFirst.hasNext()) {
+            eldestFirst.next();
+            eldestFirst.remove();
+            evictions.increment();
+        }
+    }
+
+    private record CachedAttributes(Map<String, Object> attributes, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int size) {
+    }
+}
@@ -0,0 +1,316 @@
+package pl.monmat.manager.api.allegro.service;
+
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.monmat.manager.api.allegro.api.CheckoutForm;
+import pl.monmat.manager.api.order.dto.BatchOrderResult;
+import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+import pl.monmat.manager.api.order.dto.SourceOrderUpdate;
+import pl.monmat.manager.api.order.dto.SourceRevision;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+final class OrderSyncPipeline {
+    private static final Logger log = LoggerFactory.getLogger(OrderSyncPipeline.class);
+    private static final Sequenced<List<CheckoutForm>> END_OF_FETCH = new Sequenced<>(-1, List.of());
+    private static final Sequenced<PersistBatch> END_OF_ENRICH = new Sequenced<>(-1, PersistBatch.EMPTY);
+    private final String account;
+    private final int enrichWorkers;
+    private final int queueCapacity;
+    private final int persistBatchSize;
+    private final Function<List<CheckoutForm>, PersistBatch> enricher;
+    private final Function<PersistBatch, List<BatchOrderResult>> persister;
+    private final Consumer<BatchOrderResult> resultHandler;
+    private final AllegroSyncMetrics metrics;
+    private final Set<String> failedOrderIds = ConcurrentHashMap.newKeySet();
+
+    OrderSyncPipeline(
+            String account,
+            int enrichWorkers,
+            int queueCapacity,
+            int persistBatchSize,
+            Function<List<CheckoutForm>, PersistBatch> enricher,
+            Function<PersistBatch, List<BatchOrderResult>> persister,
+            Consumer<BatchOrderResult> resultHandler,
+            AllegroSyncMetrics metrics
+    ) {
+        this.account = account;
+        this.enrichWorkers = Math.max(1, enrichWorkers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.persistBatchSize = Math.max(1, persistBatchSize);
+        this.enricher = enricher;
+        this.persister = persister;
+        this.resultHandler = resultHandler;
+        this.metrics = metrics;
+    }
+
+    Result run(Source source) {
+        BlockingQueue<Sequenced<List<CheckoutForm>>> fetched = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Sequenced<PersistBatch>> enriched = new ArrayBlockingQueue<>(queueCapacity);
+        metrics.trackQueue("fetched", fetched);
+        metrics.trackQueue("enriched", enriched);
+        SequencingSink sink = new SequencingSink(fetched);
+        List<Future<?>> stages = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            stages.add(executor.submit(() -> {
+                try {
+                    source.produce(sink);
+                    return null;
+                } finally {
+                    for (int i = 0; i < enrichWorkers; i++) {
+                        fetched.put(END_OF_FETCH);
+                    }
+                }
+            }));
+            for (int i = 0; i < enrichWorkers; i++) {
+                stages.add(executor.submit(() -> {
+                    enrichLoop(fetched, enriched);
+                    return null;
+                }));
+            }
+            try {
+                persistLoop(enriched);
+            } catch (RuntimeException e) {
+                stages.forEach(stage -> stage.cancel(true));
+                fetched.clear();
+                enriched.clear();
+                throw e;
+            }
+            for (Future<?> stage : stages) {
+                await(stage);
+            }
+        } finally {
+            metrics.untrackQueue("fetched", fetched);
+            metrics.untrackQueue("enriched", enriched);
+        }
+        return new Result(sink.forms, Set.copyOf(failedOrderIds));
+    }
+
+    private void enrichLoop(
+            BlockingQueue<Sequenced<List<CheckoutForm>>> fetched,
+            BlockingQueue<Sequenced<PersistBatch>> enriched
+    ) throws InterruptedException {
+        try {
+            Sequenced<List<CheckoutForm>> chunk;
+            while ((chunk = fetched.take()) != END_OF_FETCH) {
+                Timer.Sample sample = metrics.startStage();
+                PersistBatch batch;
+                try {
+                    batch = enricher.apply(chunk.value());
+                } catch (RuntimeException e) {
+                    log.error("Error enriching {} orders for account {}: {}", chunk.value().size(), account, e.getMessage(), e);
+                    metrics.ordersFailed(chunk.value().size());
+                    chunk.value().stream().map(CheckoutForm::id).filter(Objects::nonNull).forEach(failedOrderIds::add);
+                    batch = PersistBatch.EMPTY;
+                }
+                failedOrderIds.addAll(batch.rejected());
+                metrics.stopStage(sample, "enrich", chunk.value().size());
+                enriched.put(new Sequenced<>(chunk.sequence(), batch));
+            }
+        } finally {
+            enriched.put(END_OF_ENRICH);
+        }
+    }
+
+    private void persistLoop(BlockingQueue<Sequenced<PersistBatch>> enriched) {
+        TreeMap<Long, PersistBatch> outOfOrder = new TreeMap<>();
+        List<PersistBatch> pending = new ArrayList<>();
+        int pendingSize = 0;
+        long next = 0;
+        int finishedWorkers = 0;
+        while (finishedWorkers < enrichWorkers) {
+            Sequenced<PersistBatch> item = take(enriched);
+            if (item == END_OF_ENRICH) {
+                finishedWorkers++;
+            } else {
+                outOfOrder.put(item.sequence(), item.value());
+            }
+            while (outOfOrder.containsKey(next)) {
+                PersistBatch batch = outOfOrder.remove(next++);
+                pending.add(batch);
+                pendingSize += batch.size();
+                if (pendingSize >= persistBatchSize) {
+                    persist(pending);
+                    pending.clear();
+                    pendingSize = 0;
+                }
+            }
+            if (pendingSize > 0 && enriched.isEmpty()) {
+                persist(pending);
+                pending.clear();
+                pendingSize = 0;
+            }
+        }
+        pending.addAll(outOfOrder.values());
+        if (!pending.isEmpty()) {
+            persist(pending);
+        }
+    }
+
+    private void persist(List<PersistBatch> batches) {
+        PersistBatch merged = PersistBatch.merge(batches);
+        if (merged.size() == 0) {
+            return;
+        }
+        Timer.Sample sample = metrics.startStage();
+        try {
+            apply(merged);
+        } catch (RuntimeException e) {
+            if (merged.size() == 1) {
+                fail(merged, e);
+            } else {
+                log.warn("Batch of {} orders for account {} failed ({}), retrying orders one by one",
+                        merged.size(), account, e.getMessage());
+                for (PersistBatch single : merged.split()) {
+                    try {
+                        apply(single);
+                    } catch (RuntimeException singleFailure) {
+                        fail(single, singleFailure);
+                    }
+                }
+            }
+        } finally {
+            metrics.stopStage(sample, "persist", merged.size());
+        }
+    }
+
+    private void apply(PersistBatch batch) {
+        for (BatchOrderResult result : persister.apply(batch)) {
+            if (result.status() == BatchOrderResult.Status.INVALID && result.externalOrderId() != null) {
+                failedOrderIds.add(result.externalOrderId());
+            }
+            resultHandler.accept(result);
+        }
+    }
+
+    private void fail(PersistBatch batch, RuntimeException e) {
+        metrics.ordersFailed(batch.size());
+        failedOrderIds.addAll(batch.orderIds());
+        log.error("Error persisting {} orders {} for account {}: {}", batch.size(), batch.orderIds(), account, e.getMessage(), e);
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the sync pipeline", e);
+        }
+    }
+
+    private static void await(Future<?> stage) {
+        try {
+            stage.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Sync pipeline stage failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the sync pipeline", e);
+        }
+    }
+
+    @FunctionalInterface
+    interface Source {
+        void produce(ChunkSink sink) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface ChunkSink {
+        void accept(List<CheckoutForm> chunk) throws InterruptedException;
+    }
+
+    record Result(int forms, Set<String> failedOrderIds) {
+        boolean succeeded() {
+            return failedOrderIds.isEmpty();
+        }
+    }
+
+    record PersistBatch(
+            List<SourceOrderUpdate> updates,
+            List<CreateOrderRequest> requests,
+            Map<String, SourceRevision> revisions,
+            List<String> rejected
+    ) {
+        static final PersistBatch EMPTY = new PersistBatch(List.of(), List.of(), Map.of(), List.of());
+
+        int size() {
+            return updates.size() + requests.size();
+        }
+
+        List<String> orderIds() {
+            List<String> ids = new ArrayList<>(size());
+            updates.forEach(update -> ids.add(update.request().externalOrderId()));
+            requests.forEach(request -> ids.add(request.externalOrderId()));
+            return ids;
+        }
+
+        List<PersistBatch> split() {
+            List<PersistBatch> singles = new ArrayList<>(size());
+            for (SourceOrderUpdate update : updates) {
+                singles.add(new PersistBatch(List.of(update), List.of(), Map.of(), List.of()));
+            }
+            for (CreateOrderRequest request : requests) {
+                SourceRevision revision = revisions.get(request.externalOrderId());
+                singles.add(new PersistBatch(List.of(), List.of(request),
+                        revision != null ? Map.of(request.externalOrderId(), revision) : Map.of(), List.of()));
+            }
+            return singles;
+        }
+
+        static PersistBatch merge(List<PersistBatch> batches) {
+            if (batches.size() == 1) {
+                return batches.getFirst();
+            }
+            List<SourceOrderUpdate> updates = new ArrayList<>();
+            List<CreateOrderRequest> requests = new ArrayList<>();
+            Map<String, SourceRevision> revisions = new HashMap<>();
+            List<String> rejected = new ArrayList<>();
+            for (PersistBatch batch : batches) {
+                updates.addAll(batch.updates());
+                requests.addAll(batch.requests());
+                revisions.putAll(batch.revisions());
+                rejected.addAll(batch.rejected());
+            }
+            return new PersistBatch(updates, requests, revisions, rejected);
+        }
+    }
+
+    private record Sequenced<T>(long sequence, T value) {
+    }
+
+    private final class SequencingSink implements ChunkSink {
+        private final BlockingQueue<Sequenced<List<CheckoutForm>>> fetched;
+        private long sequence;
+        private int forms;
+
+        private SequencingSink(BlockingQueue<Sequenced<List<CheckoutForm>>> fetched) {
+            this.fetched = fetched;
+        }
+
+        @Override
+        public void accept(List<CheckoutForm> chunk) throws InterruptedException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            fetched.put(new Sequenced<>(sequence++, chunk));
+            forms += chunk.size();
+            metrics.stageCompleted("fetch", chunk.size());
+        }
+    }
+}
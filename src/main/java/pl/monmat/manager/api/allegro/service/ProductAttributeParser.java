@@ -1,17 +1,36 @@
 package pl.monmat.manager.api.allegro.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import pl.monmat.manager.api.allegro.api.AllegroOfferDetails;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 @Service
 public class ProductAttributeParser {
-    private static final Pattern INTERNAL_ID_PATTERN = Pattern.compile("<p>// (.*?)</p>");
+    private static final String INTERNAL_ID_PREFIX = "<p>// ";
+    private static final String INTERNAL_ID_SUFFIX = "</p>";
+    private final JsonMapper jsonMapper;
+    private final Set<String> selectedParameters;
+
+    public ProductAttributeParser(
+            JsonMapper jsonMapper,
+            @Value("${allegro.offer-attributes.parameters:}") Set<String> selectedParameters
+    ) {
+        this.jsonMapper = jsonMapper;
+        this.selectedParameters = Set.copyOf(selectedParameters);
+    }
 
     public Map<String, Object> extractAttributes(AllegroOfferDetails offerDetails) {
         Map<String, Object> attributes = new HashMap<>();
@@ -20,9 +39,131 @@ public class ProductAttributeParser {
         }
         attributes.put("categoryId", offerDetails.category().id());
         extractInternalId(offerDetails).ifPresent(id -> attributes.put("internalId", id));
+        if (!selectedParameters.isEmpty() && offerDetails.parameters() != null) {
+            Map<String, List<String>> parameters = new LinkedHashMap<>();
+            for (AllegroOfferDetails.Parameter parameter : offerDetails.parameters()) {
+                if (parameter.id() != null && selectedParameters.contains(parameter.id()) && parameter.values() != null) {
+                    parameters.put(parameter.id(), List.copyOf(parameter.values()));
+                }
+            }
+            if (!parameters.isEmpty()) {
+                attributes.put("parameters", parameters);
+            }
+        }
         return attributes;
     }
 
+    public Map<String, Object> extractAttributes(InputStream offerDetailsJson) {
+        OfferAttributes offer = new OfferAttributes();
+        try (JsonParser parser = jsonMapper.createParser(offerDetailsJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new HashMap<>();
+            }
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "category" -> readCategory(parser, value, offer);
+                    case "parameters" -> readParameters(parser, value, offer);
+                    case "description" -> readDescription(parser, value, offer);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return offer.toAttributes();
+    }
+
+    private void readCategory(JsonParser parser, JsonToken value, OfferAttributes offer) {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        offer.hasCategory = true;
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("id".equals(field) && token == JsonToken.VALUE_STRING) {
+                offer.categoryId = parser.getString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readParameters(JsonParser parser, JsonToken value, OfferAttributes offer) {
+        if (value != JsonToken.START_ARRAY || selectedParameters.isEmpty()) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String id = null;
+            List<String> values = null;
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("id".equals(field) && token == JsonToken.VALUE_STRING) {
+                    id = parser.getString();
+                } else if ("values".equals(field) && token == JsonToken.START_ARRAY) {
+                    values = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                            values.add(parser.getString());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (id != null && values != null && selectedParameters.contains(id)) {
+                offer.parameters.put(id, List.copyOf(values));
+            }
+        }
+    }
+
+    private void readDescription(JsonParser parser, JsonToken value, OfferAttributes offer) {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (!"sections".equals(field) || token != JsonToken.START_ARRAY || offer.internalId != null) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                readSection(parser, offer);
+            }
+        }
+    }
+
+    private void readSection(JsonParser parser, OfferAttributes offer) {
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (!"items".equals(field) || token != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                    String itemField = parser.currentName();
+                    JsonToken itemToken = parser.nextToken();
+                    if (offer.internalId == null && "content".equals(itemField) && itemToken == JsonToken.VALUE_STRING) {
+                        CharSequence content = CharBuffer.wrap(
+                                parser.getStringCharacters(), parser.getStringOffset(), parser.getStringLength());
+                        offer.internalId = findInternalId(content);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+    }
+
     private Optional<String> extractInternalId(AllegroOfferDetails offerDetails) {
         if (offerDetails.description() == null || offerDetails.description().sections() == null) {
             return Optional.empty();
@@ -31,12 +172,80 @@ public class ProductAttributeParser {
             if (section.items() == null) continue;
             for (var item : section.items()) {
                 if (item.content() == null) continue;
-                Matcher matcher = INTERNAL_ID_PATTERN.matcher(item.content());
-                if (matcher.find()) {
-                    return Optional.of(matcher.group(1));
+                String internalId = findInternalId(item.content());
+                if (internalId != null) {
+                    return Optional.of(internalId);
                 }
             }
         }
         return Optional.empty();
     }
+
+    static String findInternalId(CharSequence content) {
+        int from = 0;
+        int start;
+        while ((start = indexOf(content, INTERNAL_ID_PREFIX, from)) >= 0) {
+            int valueStart = start + INTERNAL_ID_PREFIX.length();
+            for (int i = valueStart; i < content.length(); i++) {
+                char c = content.charAt(i);
+                if (isLineTerminator(c)) {
+                    break;
+                }
+                if (c == '<' && regionMatches(content, i, INTERNAL_ID_SUFFIX)) {
+                    return content.subSequence(valueStart, i).toString();
+                }
+            }
+            from = start + 1;
+        }
+        return null;
+    }
+
+    private static int indexOf(CharSequence content, String needle, int from) {
+        char first = needle.charAt(0);
+        int last = content.length() - needle.length();
+        for (int i = from; i <= last; i++) {
+            if (content.charAt(i) == first && regionMatches(content, i, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence content, int offset, String needle) {
+        if (offset + needle.length() > content.length()) {
+            return false;
+        }
+        for (int i = 0; i < needle.length(); i++) {
+            if (content.charAt(offset + i) != needle.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static final class OfferAttributes {
+        private boolean hasCategory;
+        private String categoryId;
+        private String internalId;
+        private final Map<String, List<String>> parameters = new LinkedHashMap<>();
+
+        private Map<String, Object> toAttributes() {
+            Map<String, Object> attributes = new HashMap<>();
+            if (!hasCategory) {
+                return attributes;
+            }
+            attributes.put("categoryId", categoryId);
+            if (internalId != null) {
+                attributes.put("internalId", internalId);
+            }
+            if (!parameters.isEmpty()) {
+                attributes.put("parameters", parameters);
+            }
+            return attributes;
+        }
+    }
 }
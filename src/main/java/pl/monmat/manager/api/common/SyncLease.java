@@ -0,0 +1,28 @@
+package pl.monmat.manager.api.common;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "sync_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncLease {
+    @Id
+    @Column(length = 128)
+    private String name;
+    @Column(length = 128, nullable = false)
+    private String owner;
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,31 @@
+package pl.monmat.manager.api.common;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+
+public interface SyncLeaseRepository extends JpaRepository<SyncLease, String> {
+    @Query("SELECT instant")
+    Instant databaseNow();
+
+    @Modifying
+    @Query("""
+            UPDATE SyncLease l SET l.owner = :owner, l.expiresAt = :expiresAt
+            WHERE l.name = :name AND (l.owner = :owner OR l.expiresAt < :now)
+            """)
+    int takeOver(String name, String owner, Instant now, Instant expiresAt);
+
+    @Modifying
+    @Query("INSERT INTO SyncLease (name, owner, expiresAt) VALUES (:name, :owner, :expiresAt)")
+    int insert(String name, String owner, Instant expiresAt);
+
+    @Modifying
+    @Query("UPDATE SyncLease l SET l.expiresAt = :expiresAt WHERE l.name = :name AND l.owner = :owner")
+    int renew(String name, String owner, Instant expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM SyncLease l WHERE l.name = :name AND l.owner = :owner")
+    int release(String name, String owner);
+}
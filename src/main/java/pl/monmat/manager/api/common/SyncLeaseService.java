@@ -0,0 +1,81 @@
+package pl.monmat.manager.api.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+@Service
+public class SyncLeaseService {
+    private static final Logger log = LoggerFactory.getLogger(SyncLeaseService.class);
+    private final SyncLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final Duration ttl;
+
+    public SyncLeaseService(
+            SyncLeaseRepository leaseRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${sync.lease.node-id:}") String nodeId,
+            @Value("${sync.lease.ttl:5m}") Duration ttl
+    ) {
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = nodeId == null || nodeId.isBlank() ? generateNodeId() : nodeId.trim();
+        this.ttl = ttl;
+        log.info("Sync leases held as node {} with ttl {}", this.nodeId, ttl);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public boolean tryAcquire(String name) {
+        Integer taken = transactionTemplate.execute(status -> {
+            Instant now = leaseRepository.databaseNow();
+            return leaseRepository.takeOver(name, nodeId, now, now.plus(ttl));
+        });
+        if (taken != null && taken > 0) {
+            return true;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(
+                    status -> leaseRepository.insert(name, nodeId, leaseRepository.databaseNow().plus(ttl)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Lease {} is held by another node", name);
+            return false;
+        }
+    }
+
+    public boolean renew(String name) {
+        Integer renewed = transactionTemplate.execute(
+                status -> leaseRepository.renew(name, nodeId, leaseRepository.databaseNow().plus(ttl)));
+        return renewed != null && renewed > 0;
+    }
+
+    public void release(String name) {
+        transactionTemplate.executeWithoutResult(status -> leaseRepository.release(name, nodeId));
+    }
+
+    private static String generateNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
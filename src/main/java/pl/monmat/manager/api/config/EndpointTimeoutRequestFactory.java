@@ -0,0 +1,43 @@
+package pl.monmat.manager.api.config;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class EndpointTimeoutRequestFactory implements ClientHttpRequestFactory {
+    private final ClientHttpRequestFactory defaultFactory;
+    private final Map<String, ClientHttpRequestFactory> factoriesByPathPrefix = new LinkedHashMap<>();
+
+    EndpointTimeoutRequestFactory(HttpClient httpClient, Duration defaultReadTimeout, Map<String, Duration> endpointReadTimeouts) {
+        this.defaultFactory = createFactory(httpClient, defaultReadTimeout);
+        endpointReadTimeouts.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, Duration> e) -> e.getKey().length()).reversed())
+                .forEach(e -> factoriesByPathPrefix.put(e.getKey(), createFactory(httpClient, e.getValue())));
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        String path = uri.getPath() != null ? uri.getPath() : "";
+        for (Map.Entry<String, ClientHttpRequestFactory> entry : factoriesByPathPrefix.entrySet()) {
+            if (path.startsWith(entry.getKey())) {
+                return entry.getValue().createRequest(uri, httpMethod);
+            }
+        }
+        return defaultFactory.createRequest(uri, httpMethod);
+    }
+
+    private static ClientHttpRequestFactory createFactory(HttpClient httpClient, Duration readTimeout) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(readTimeout);
+        return factory;
+    }
+}
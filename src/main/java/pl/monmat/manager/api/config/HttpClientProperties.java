@@ -0,0 +1,17 @@
+package pl.monmat.manager.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties("http.client")
+public record HttpClientProperties(
+        @DefaultValue("5s") Duration connectTimeout,
+        @DefaultValue("30s") Duration readTimeout,
+        @DefaultValue("true") boolean http2,
+        @DefaultValue("true") boolean compression,
+        Map<String, Duration> endpointReadTimeouts
+) {
+}
@@ -1,15 +1,43 @@
 package pl.monmat.manager.api.config;
 
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
 @Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
 public class RestClientConfig {
 
     @Bean
-    public RestClient.Builder restClientBuilder() {
-        return RestClient.builder();
+    public HttpClient httpClient(HttpClientProperties properties) {
+        return HttpClient.newBuilder()
+                .version(properties.http2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.connectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
     }
-}
 
+    @Bean
+    public RestClient.Builder restClientBuilder(
+            HttpClient httpClient,
+            HttpClientProperties properties,
+            ObjectProvider<ObservationRegistry> observationRegistry
+    ) {
+        Map<String, Duration> endpointTimeouts =
+                properties.endpointReadTimeouts() != null ? properties.endpointReadTimeouts() : Map.of();
+        RestClient.Builder builder = RestClient.builder()
+                .requestFactory(new EndpointTimeoutRequestFactory(httpClient, properties.readTimeout(), endpointTimeouts))
+                .observationRegistry(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+        if (properties.compression()) {
+            builder.requestInterceptor(new GzipDecompressingInterceptor());
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,119 @@
+package pl.monmat.manager.api.order;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class CustomIdAllocator {
+    private static final Logger log = LoggerFactory.getLogger(CustomIdAllocator.class);
+    private static final DateTimeFormatter CUSTOM_ID_FORMATTER = DateTimeFormatter.ofPattern("yyMM");
+    private final OrderNumberCounterRepository counterRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    private final ConcurrentMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public CustomIdAllocator(
+            OrderNumberCounterRepository counterRepository,
+            OrderRepository orderRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${orders.custom-id.block-size:50}") int blockSize
+    ) {
+        this.counterRepository = counterRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public static String prefixOf(LocalDateTime orderDateTime) {
+        return CUSTOM_ID_FORMATTER.format(orderDateTime);
+    }
+
+    public String nextCustomId(LocalDateTime orderDateTime) {
+        return nextCustomIds(prefixOf(orderDateTime), 1).getFirst();
+    }
+
+    public List<String> nextCustomIds(String prefix, int count) {
+        List<String> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            Block cached = blocks.get(prefix);
+            long number = cached != null ? cached.take() : -1;
+            if (number >= 0) {
+                ids.add(format(prefix, number));
+                continue;
+            }
+            Block reserved = reserve(prefix, Math.max(blockSize, count - ids.size()));
+            while (ids.size() < count && (number = reserved.take()) >= 0) {
+                ids.add(format(prefix, number));
+            }
+            if (!reserved.isExhausted()) {
+                blocks.put(prefix, reserved);
+            }
+        }
+        return ids;
+    }
+
+    private static String format(String prefix, long number) {
+        return prefix + "/" + String.format("%05d", number);
+    }
+
+    private Block reserve(String prefix, int count) {
+        Long last;
+        try {
+            last = transactionTemplate.execute(status -> advance(prefix, count));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Custom ID counter for {} was created concurrently, retrying", prefix);
+            last = transactionTemplate.execute(status -> advance(prefix, count));
+        }
+        long end = Objects.requireNonNull(last) + 1;
+        return new Block(end - count, end);
+    }
+
+    private long advance(String prefix, int count) {
+        OrderNumberCounter counter = counterRepository.findForUpdate(prefix)
+                .orElseGet(() -> new OrderNumberCounter(prefix, lastNumberInMonth(prefix)));
+        counter.setLastValue(counter.getLastValue() + count);
+        return counterRepository.saveAndFlush(counter).getLastValue();
+    }
+
+    private long lastNumberInMonth(String prefix) {
+        Long lastNumber = orderRepository.findLastNumberInMonth(prefix);
+        log.info("Initializing custom ID counter for {} at {}", prefix, lastNumber != null ? lastNumber : 0);
+        return lastNumber != null ? lastNumber : 0;
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long next, long end) {
+            this.next = new AtomicLong(next);
+            this.end = end;
+        }
+
+        private long take() {
+            long number = next.getAndIncrement();
+            return number < end ? number : -1;
+        }
+
+        private boolean isExhausted() {
+            return next.get() >= end;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package pl.monmat.manager.api.order;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.type.SqlTypes;
@@ -11,6 +13,7 @@ import pl.monmat.manager.api.common.model.Address;
 import pl.monmat.manager.api.common.model.InvoiceDetails;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,11 +21,13 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "orders")
+@DynamicUpdate
 @Getter
 @Setter
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_seq")
+    @SequenceGenerator(name = "orders_id_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Long id;
     @Column(unique = true)
     private String customId;
@@ -33,6 +38,7 @@ public class Order {
     @Column(columnDefinition = "jsonb")
     private InvoiceDetails invoiceDetails;
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 500)
     private List<OrderItem> items = new ArrayList<>();
     @Column(columnDefinition = "char(3)")
     @JdbcTypeCode(SqlTypes.CHAR)
@@ -61,12 +67,21 @@ public class Order {
     private String deliveryMethodId;
     private String deliveryMethodName;
     private String pickupPointId;
+    @Column(nullable = false)
+    private boolean deliveryOverridden;
     private String trackingNumbers;
     private String customerComment;
     private String internalNotes;
     private Boolean isSmart;
+    @Column(length = 64)
+    private String sourceAccount;
+    @Column(length = 32)
+    private String sourceFingerprint;
+    private Instant sourceUpdatedAt;
     @CreationTimestamp
     private LocalDateTime createdAt;
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+    @Version
+    private Long version;
 }
@@ -1,26 +1,48 @@
 package pl.monmat.manager.api.order;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import pl.monmat.manager.api.order.dto.BatchOrderResult;
 import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+import pl.monmat.manager.api.order.dto.CursorPage;
+import pl.monmat.manager.api.order.dto.OrderSearchCriteria;
+import pl.monmat.manager.api.order.dto.OrderSummary;
 import pl.monmat.manager.api.order.dto.PatchOrderRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.ToLongFunction;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
+    private static final int DEFAULT_CURSOR_LIMIT = 100;
+    private static final int MAX_CURSOR_LIMIT = 500;
     private final OrderRepository repository;
     private final OrderService orderService;
+    private final OrderExportService exportService;
 
-    public OrderController(OrderRepository repository, OrderService orderService) {
+    public OrderController(OrderRepository repository, OrderService orderService, OrderExportService exportService) {
         this.repository = repository;
         this.orderService = orderService;
+        this.exportService = exportService;
     }
 
     @GetMapping
@@ -32,10 +54,90 @@ public class OrderController {
         return repository.findAll(PageRequest.of(page, size, sort));
     }
 
+    @GetMapping(params = "limit")
+    public CursorPage<Order> getAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        validateLimit(limit);
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<Order> orders = after == null
+                ? repository.findAllByOrderByIdDesc(fetchLimit)
+                : repository.findByIdLessThanOrderByIdDesc(decodeCursor(after), fetchLimit);
+        return toCursorPage(orders, limit, Order::getId, includeTotal ? repository.count() : null);
+    }
+
+    @GetMapping(params = {"after", "!limit"})
+    public CursorPage<Order> getAfterWithDefaultLimit(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        return getAfter(after, DEFAULT_CURSOR_LIMIT, includeTotal);
+    }
+
+    @GetMapping("/summary")
+    public CursorPage<OrderSummary> getSummaries(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        validateLimit(limit);
+        long beforeId = after == null ? Long.MAX_VALUE : decodeCursor(after);
+        List<OrderSummary> summaries = repository.findSummariesBefore(beforeId, Limit.of(limit + 1));
+        return toCursorPage(summaries, limit, OrderSummary::id, includeTotal ? repository.count() : null);
+    }
+
+    @GetMapping("/search")
+    public CursorPage<Order> search(
+            @ModelAttribute OrderSearchCriteria criteria,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        validateLimit(limit);
+        Specification<Order> filter = OrderSpecifications.matching(criteria);
+        Specification<Order> page = after == null ? filter : filter.and(OrderSpecifications.before(decodeCursor(after)));
+        List<Order> orders = repository.findBy(page, q -> q.sortBy(Sort.by("id").descending()).limit(limit + 1).all());
+        return toCursorPage(orders, limit, Order::getId, includeTotal ? repository.count(filter) : null);
+    }
+
+    @GetMapping("/export")
+    public void export(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response
+    ) throws IOException {
+        OrderExportService.ExportFormat exportFormat;
+        try {
+            exportFormat = OrderExportService.ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        response.setContentType(exportFormat.contentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + exportFormat.extension() + "\"");
+        exportService.export(from, to, status, exportFormat, response.getWriter());
+    }
+
     @GetMapping("/{uuid}")
-    public ResponseEntity<Order> getOrderByUuid(@PathVariable UUID uuid) {
+    public ResponseEntity<Order> getOrderByUuid(
+            @PathVariable UUID uuid,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = repository.findVersionByUuid(uuid);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (matchesAny(ifNoneMatch, version.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(toETag(version.get())).build();
+            }
+        }
         return repository.findByUuid(uuid)
-                .map(ResponseEntity::ok)
+                .map(order -> ResponseEntity.ok().eTag(toETag(order.getVersion())).body(order))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -45,13 +147,84 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedOrder);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchOrderResult>> createBatch(@RequestBody @Valid List<@Valid CreateOrderRequest> requests) {
+        return ResponseEntity.ok(orderService.createOrders(requests));
+    }
+
     @PatchMapping("/{uuid}")
     public ResponseEntity<Order> patchOrder(
             @PathVariable UUID uuid,
-            @RequestBody PatchOrderRequest patch
+            @RequestBody PatchOrderRequest patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        return orderService.patchOrder(uuid, patch)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        Long expectedVersion = null;
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            expectedVersion = parseETag(ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+        }
+        try {
+            return orderService.patchOrder(uuid, patch, expectedVersion)
+                    .map(order -> ResponseEntity.ok().eTag(toETag(order.getVersion())).body(order))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+    }
+
+    private static String toETag(Long version) {
+        return "\"" + (version != null ? version : 0L) + "\"";
+    }
+
+    private static Long parseETag(String etag) {
+        String value = etag.trim();
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, long version) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            Long parsed = parseETag(tag);
+            if (parsed != null && parsed == version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_CURSOR_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_CURSOR_LIMIT);
+        }
+    }
+
+    private long decodeCursor(String cursor) {
+        try {
+            return CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private <T> CursorPage<T> toCursorPage(List<T> rows, int limit, ToLongFunction<T> idOf, Long totalCount) {
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? CursorPage.encodeCursor(idOf.applyAsLong(items.getLast())) : null;
+        return new CursorPage<>(items, nextCursor, totalCount);
     }
 }
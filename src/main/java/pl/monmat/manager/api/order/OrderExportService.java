@@ -0,0 +1,109 @@
+package pl.monmat.manager.api.order;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.stereotype.Service;
+import pl.monmat.manager.api.order.dto.OrderExportRow;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+public class OrderExportService {
+    private static final int FETCH_SIZE = 500;
+    private static final String CSV_HEADER = "customId,uuid,externalOrderId,status,boughtAt,paymentAt,totalPaidAmount,"
+            + "paidCurrency,shippingCost,shippingCostCurrency,needsInvoice,email,username,deliveryMethodName";
+    private final EntityManager entityManager;
+    private final ObjectWriter rowWriter;
+
+    public OrderExportService(EntityManager entityManager, JsonMapper jsonMapper) {
+        this.entityManager = entityManager;
+        this.rowWriter = jsonMapper.writerFor(OrderExportRow.class);
+    }
+
+    @Transactional
+    public long export(LocalDateTime from, LocalDateTime to, String status, ExportFormat format, Writer writer) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long count = 0;
+        try (Stream<OrderExportRow> rows = createQuery(from, to, status).getResultStream()) {
+            for (OrderExportRow row : (Iterable<OrderExportRow>) rows::iterator) {
+                writer.write(format == ExportFormat.CSV ? toCsv(row) : rowWriter.writeValueAsString(row));
+                writer.write('\n');
+                count++;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private TypedQuery<OrderExportRow> createQuery(LocalDateTime from, LocalDateTime to, String status) {
+        List<String> conditions = new ArrayList<>();
+        if (from != null) conditions.add("o.boughtAt >= :from");
+        if (to != null) conditions.add("o.boughtAt < :to");
+        if (status != null) conditions.add("o.status = :status");
+        String jpql = "SELECT new pl.monmat.manager.api.order.dto.OrderExportRow("
+                + "o.customId, o.uuid, o.externalOrderId, o.status, o.boughtAt, o.paymentAt, o.totalPaidAmount, "
+                + "o.paidCurrency, o.shippingCost, o.shippingCostCurrency, o.needsInvoice, o.email, o.username, "
+                + "o.deliveryMethodName) FROM Order o"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY o.id";
+        TypedQuery<OrderExportRow> query = entityManager.createQuery(jpql, OrderExportRow.class)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(AvailableHints.HINT_READ_ONLY, true);
+        if (from != null) query.setParameter("from", from);
+        if (to != null) query.setParameter("to", to);
+        if (status != null) query.setParameter("status", status);
+        return query;
+    }
+
+    private String toCsv(OrderExportRow row) {
+        return String.join(",",
+                csv(row.customId()), csv(row.uuid()), csv(row.externalOrderId()), csv(row.status()),
+                csv(row.boughtAt()), csv(row.paymentAt()), csv(row.totalPaidAmount()), csv(row.paidCurrency()),
+                csv(row.shippingCost()), csv(row.shippingCostCurrency()), csv(row.needsInvoice()),
+                csv(row.email()), csv(row.username()), csv(row.deliveryMethodName()));
+    }
+
+    private String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+}
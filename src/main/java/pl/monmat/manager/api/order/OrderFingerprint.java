@@ -0,0 +1,87 @@
+package pl.monmat.manager.api.order;
+
+import pl.monmat.manager.api.common.model.Address;
+import pl.monmat.manager.api.common.model.InvoiceDetails;
+import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class OrderFingerprint {
+    private static final char SEPARATOR = '\u001f';
+    private static final int FINGERPRINT_BYTES = 16;
+
+    private OrderFingerprint() {
+    }
+
+    public static String of(CreateOrderRequest request, boolean cancelled) {
+        StringBuilder canonical = new StringBuilder(256);
+        append(canonical, request.email());
+        append(canonical, request.phoneNumber());
+        append(canonical, request.username());
+        append(canonical, request.isGuest());
+        appendAddress(canonical, request.shippingAddress());
+        append(canonical, request.totalPaidAmount());
+        append(canonical, request.paidCurrency());
+        append(canonical, request.paymentAt());
+        append(canonical, request.shippingCost());
+        append(canonical, request.shippingCostCurrency());
+        append(canonical, request.deliveryMethodId());
+        append(canonical, request.deliveryMethodName());
+        append(canonical, request.pickupPointId());
+        append(canonical, request.isSmart());
+        append(canonical, request.needsInvoice());
+        appendInvoice(canonical, request.invoiceDetails());
+        append(canonical, cancelled);
+        return HexFormat.of().formatHex(sha256(canonical.toString()), 0, FINGERPRINT_BYTES);
+    }
+
+    private static void appendAddress(StringBuilder canonical, Address address) {
+        if (address == null) {
+            append(canonical, null);
+            return;
+        }
+        append(canonical, address.getFirstName());
+        append(canonical, address.getLastName());
+        append(canonical, address.getCompanyName());
+        append(canonical, address.getPhoneNumber());
+        append(canonical, address.getStreet());
+        append(canonical, address.getCity());
+        append(canonical, address.getZipCode());
+        append(canonical, address.getCountryCode());
+    }
+
+    private static void appendInvoice(StringBuilder canonical, InvoiceDetails invoice) {
+        if (invoice == null) {
+            append(canonical, null);
+            return;
+        }
+        append(canonical, invoice.isNeedsInvoice());
+        append(canonical, invoice.getCompanyName());
+        append(canonical, invoice.getTaxId());
+        append(canonical, invoice.getStreet());
+        append(canonical, invoice.getCity());
+        append(canonical, invoice.getZipCode());
+        append(canonical, invoice.getCountryCode());
+    }
+
+    private static void append(StringBuilder canonical, Object value) {
+        if (value instanceof BigDecimal decimal) {
+            canonical.append(decimal.stripTrailingZeros().toPlainString());
+        } else if (value != null) {
+            canonical.append(value);
+        }
+        canonical.append(SEPARATOR);
+    }
+
+    private static byte[] sha256(String canonical) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
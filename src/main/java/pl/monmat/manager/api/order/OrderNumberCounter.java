@@ -0,0 +1,21 @@
+package pl.monmat.manager.api.order;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "order_number_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderNumberCounter {
+    @Id
+    private String prefix;
+    private long lastValue;
+}
@@ -0,0 +1,14 @@
+package pl.monmat.manager.api.order;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface OrderNumberCounterRepository extends JpaRepository<OrderNumberCounter, String> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM OrderNumberCounter c WHERE c.prefix = :prefix")
+    Optional<OrderNumberCounter> findForUpdate(String prefix);
+}
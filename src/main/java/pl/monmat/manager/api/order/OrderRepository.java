@@ -1,16 +1,55 @@
 package pl.monmat.manager.api.order;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import pl.monmat.manager.api.order.dto.OrderSourceState;
+import pl.monmat.manager.api.order.dto.OrderSummary;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+    List<Order> findAllByOrderByIdDesc(Limit limit);
+
+    List<Order> findByIdLessThanOrderByIdDesc(Long id, Limit limit);
+
+    @Query("""
+            SELECT new pl.monmat.manager.api.order.dto.OrderSummary(
+                o.id, o.customId, o.uuid, o.status, o.boughtAt, o.totalPaidAmount, o.username,
+                (SELECT COUNT(i) FROM OrderItem i WHERE i.order = o))
+            FROM Order o
+            WHERE o.id < :beforeId
+            ORDER BY o.id DESC
+            """)
+    List<OrderSummary> findSummariesBefore(Long beforeId, Limit limit);
+
     Optional<Order> findByUuid(UUID uuid);
 
+    @Query("SELECT o.version FROM Order o WHERE o.uuid = :uuid")
+    Optional<Long> findVersionByUuid(UUID uuid);
+
     Optional<Order> findByExternalOrderId(String externalOrderId);
 
-    @Query(value = "SELECT * FROM orders WHERE custom_id LIKE CONCAT(:prefix, '%') ORDER BY id DESC LIMIT 1", nativeQuery = true)
-    Optional<Order> findLastOrderInMonth(String prefix);
+    @Query("SELECT o.externalOrderId FROM Order o WHERE o.externalOrderId IN :externalOrderIds")
+    Set<String> findExistingExternalOrderIds(Collection<String> externalOrderIds);
+
+    @Query("""
+            SELECT new pl.monmat.manager.api.order.dto.OrderSourceState(o.externalOrderId, o.sourceFingerprint, o.sourceUpdatedAt)
+            FROM Order o
+            WHERE o.externalOrderId IN :externalOrderIds
+            """)
+    List<OrderSourceState> findSourceStates(Collection<String> externalOrderIds);
+
+    List<Order> findAllByExternalOrderIdIn(Collection<String> externalOrderIds);
+
+    @Query("""
+            SELECT MAX(CAST(SUBSTRING(o.customId, LENGTH(:prefix) + 2) AS Long)) FROM Order o
+            WHERE o.customId LIKE CONCAT(:prefix, '/%')
+            """)
+    Long findLastNumberInMonth(String prefix);
 }
@@ -1,29 +1,48 @@
 package pl.monmat.manager.api.order;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import pl.monmat.manager.api.order.dto.BatchOrderResult;
 import pl.monmat.manager.api.order.dto.CreateOrderRequest;
 import pl.monmat.manager.api.order.dto.OrderItemRequest;
+import pl.monmat.manager.api.order.dto.OrderSourceState;
 import pl.monmat.manager.api.order.dto.PatchOrderRequest;
+import pl.monmat.manager.api.order.dto.SourceOrderUpdate;
+import pl.monmat.manager.api.order.dto.SourceRevision;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class OrderService {
-    private static final DateTimeFormatter CUSTOM_ID_FORMATTER = DateTimeFormatter.ofPattern("yyMM");
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+    private static final String CANCELLED = "CANCELLED";
     private final OrderRepository orderRepository;
+    private final CustomIdAllocator customIdAllocator;
 
-    public OrderService(OrderRepository orderRepository) {
+    public OrderService(OrderRepository orderRepository, CustomIdAllocator customIdAllocator) {
         this.orderRepository = orderRepository;
+        this.customIdAllocator = customIdAllocator;
     }
 
+    @Timed(value = "orders.create", histogram = true)
     @Transactional
     public Order createOrder(CreateOrderRequest request) {
         if (request.externalOrderId() != null && !request.externalOrderId().isEmpty()) {
@@ -32,13 +51,73 @@ public class OrderService {
                 throw new DataIntegrityViolationException("Order with externalOrderId " + request.externalOrderId() + " already exists");
             }
         }
+        Order order = buildOrder(request);
+        order.setCustomId(customIdAllocator.nextCustomId(order.getBoughtAt()));
+        return orderRepository.save(order);
+    }
+
+    @Timed(value = "orders.create.batch", histogram = true)
+    @Transactional
+    public List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests) {
+        return insertOrders(requests, Map.of());
+    }
+
+    @Timed(value = "orders.create.batch", histogram = true)
+    @Transactional
+    public List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests, Map<String, SourceRevision> revisions) {
+        return insertOrders(requests, revisions);
+    }
+
+    private List<BatchOrderResult> insertOrders(List<CreateOrderRequest> requests, Map<String, SourceRevision> revisions) {
+        Set<String> existing = findExistingExternalOrderIds(requests.stream()
+                .map(CreateOrderRequest::externalOrderId)
+                .filter(id -> id != null && !id.isEmpty())
+                .toList());
+        Set<String> seen = new HashSet<>();
+        Map<String, List<Order>> ordersByPrefix = new LinkedHashMap<>();
+        List<BatchOrderResult> results = new ArrayList<>(requests.size());
+        List<Order> orders = new ArrayList<>(requests.size());
+        for (CreateOrderRequest request : requests) {
+            String externalId = request.externalOrderId();
+            if (externalId != null && !externalId.isEmpty() && (existing.contains(externalId) || !seen.add(externalId))) {
+                results.add(BatchOrderResult.duplicate(externalId));
+                continue;
+            }
+            Order order = buildOrder(request);
+            SourceRevision revision = externalId != null ? revisions.get(externalId) : null;
+            if (revision != null) {
+                order.setSourceAccount(revision.account());
+                order.setSourceFingerprint(revision.fingerprint());
+                order.setSourceUpdatedAt(revision.updatedAt());
+            }
+            ordersByPrefix.computeIfAbsent(CustomIdAllocator.prefixOf(order.getBoughtAt()), p -> new ArrayList<>()).add(order);
+            orders.add(order);
+            results.add(null);
+        }
+        ordersByPrefix.forEach((prefix, prefixOrders) -> {
+            List<String> customIds = customIdAllocator.nextCustomIds(prefix, prefixOrders.size());
+            for (int i = 0; i < prefixOrders.size(); i++) {
+                prefixOrders.get(i).setCustomId(customIds.get(i));
+            }
+        });
+        Iterator<Order> created = orders.iterator();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                Order order = created.next();
+                results.set(i, BatchOrderResult.created(order.getExternalOrderId(), order.getUuid(), order.getCustomId()));
+            }
+        }
+        orderRepository.saveAll(orders);
+        return results;
+    }
+
+    private Order buildOrder(CreateOrderRequest request) {
         Order order = new Order();
         order.setUuid(UUID.randomUUID());
         order.setExternalOrderId(request.externalOrderId());
         order.setEmail(request.email());
         order.setPhoneNumber(request.phoneNumber());
         order.setBoughtAt(request.boughtAt() != null ? request.boughtAt() : LocalDateTime.now());
-        order.setCustomId(generateCustomId(order.getBoughtAt()));
         order.setStatus("NEW");
         order.setUsername(request.username());
         order.setIsGuest(request.isGuest());
@@ -78,13 +157,130 @@ public class OrderService {
         if (order.getTotalPaidAmount() == null) {
             order.setTotalPaidAmount(calculatedTotal);
         }
-        return orderRepository.save(order);
+        return order;
+    }
+
+    public Set<String> findExistingExternalOrderIds(Collection<String> externalOrderIds) {
+        if (externalOrderIds.isEmpty()) {
+            return Set.of();
+        }
+        return orderRepository.findExistingExternalOrderIds(externalOrderIds);
+    }
+
+    public Map<String, OrderSourceState> findSourceStates(Collection<String> externalOrderIds) {
+        if (externalOrderIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, OrderSourceState> states = new HashMap<>();
+        for (OrderSourceState state : orderRepository.findSourceStates(externalOrderIds)) {
+            states.put(state.externalOrderId(), state);
+        }
+        return states;
+    }
+
+    @Timed(value = "orders.update.source", histogram = true)
+    @Transactional
+    public List<BatchOrderResult> applySourceUpdates(List<SourceOrderUpdate> updates) {
+        return updateFromSource(updates);
+    }
+
+    private List<BatchOrderResult> updateFromSource(List<SourceOrderUpdate> updates) {
+        if (updates.isEmpty()) {
+            return List.of();
+        }
+        Map<String, SourceOrderUpdate> pending = new LinkedHashMap<>();
+        for (SourceOrderUpdate update : updates) {
+            pending.put(update.request().externalOrderId(), update);
+        }
+        List<BatchOrderResult> results = new ArrayList<>(updates.size());
+        for (Order order : orderRepository.findAllByExternalOrderIdIn(pending.keySet())) {
+            applySourceUpdate(order, pending.remove(order.getExternalOrderId()));
+            results.add(BatchOrderResult.updated(order.getExternalOrderId(), order.getUuid(), order.getCustomId()));
+        }
+        pending.keySet().forEach(externalId ->
+                results.add(BatchOrderResult.invalid(externalId, "Order with externalOrderId " + externalId + " does not exist")));
+        return results;
     }
 
+    @Timed(value = "orders.sync.batch", histogram = true)
+    @Transactional
+    public List<BatchOrderResult> applySourceChanges(
+            List<SourceOrderUpdate> updates,
+            List<CreateOrderRequest> requests,
+            Map<String, SourceRevision> revisions
+    ) {
+        List<BatchOrderResult> results = new ArrayList<>(updates.size() + requests.size());
+        results.addAll(updateFromSource(updates));
+        if (!requests.isEmpty()) {
+            results.addAll(insertOrders(requests, revisions));
+        }
+        return results;
+    }
+
+    private void applySourceUpdate(Order order, SourceOrderUpdate update) {
+        CreateOrderRequest request = update.request();
+        order.setEmail(request.email());
+        order.setPhoneNumber(request.phoneNumber());
+        order.setUsername(request.username());
+        order.setIsGuest(request.isGuest());
+        order.setShippingAddress(request.shippingAddress());
+        if (request.totalPaidAmount() != null) {
+            order.setTotalPaidAmount(request.totalPaidAmount());
+        }
+        order.setPaidCurrency(request.paidCurrency());
+        order.setPaymentAt(request.paymentAt());
+        order.setShippingCost(request.shippingCost());
+        order.setShippingCostCurrency(request.shippingCostCurrency());
+        order.setIsSmart(request.isSmart());
+        order.setNeedsInvoice(request.needsInvoice());
+        order.setInvoiceDetails(request.invoiceDetails());
+        applySourceDelivery(order, request);
+        if (update.revision().cancelled() && !CANCELLED.equals(order.getStatus())) {
+            order.setStatus(CANCELLED);
+        }
+        if (order.getSourceAccount() == null) {
+            order.setSourceAccount(update.revision().account());
+        }
+        order.setSourceFingerprint(update.revision().fingerprint());
+        order.setSourceUpdatedAt(update.revision().updatedAt());
+    }
+
+    private void applySourceDelivery(Order order, CreateOrderRequest request) {
+        if (!order.isDeliveryOverridden()) {
+            order.setDeliveryMethodId(request.deliveryMethodId());
+            order.setDeliveryMethodName(request.deliveryMethodName());
+            order.setPickupPointId(request.pickupPointId());
+            return;
+        }
+        if (!Objects.equals(order.getDeliveryMethodId(), request.deliveryMethodId())
+                || !Objects.equals(order.getDeliveryMethodName(), request.deliveryMethodName())
+                || !Objects.equals(order.getPickupPointId(), request.pickupPointId())) {
+            log.warn("Order {} has locally edited delivery details, keeping them over source delivery {} / {}",
+                    order.getExternalOrderId(), request.deliveryMethodId(), request.pickupPointId());
+        }
+    }
+
+    @Timed(value = "orders.patch", histogram = true)
     @Transactional
     public Optional<Order> patchOrder(UUID uuid, PatchOrderRequest patch) {
+        return applyPatch(uuid, patch, null);
+    }
+
+    @Timed(value = "orders.patch", histogram = true)
+    @Transactional
+    public Optional<Order> patchOrder(UUID uuid, PatchOrderRequest patch, Long expectedVersion) {
+        return applyPatch(uuid, patch, expectedVersion);
+    }
+
+    private Optional<Order> applyPatch(UUID uuid, PatchOrderRequest patch, Long expectedVersion) {
         return orderRepository.findByUuid(uuid)
-                .map(order -> applyPatch(order, patch))
+                .map(order -> {
+                    if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+                        throw new OptimisticLockingFailureException(
+                                "Order " + uuid + " is at version " + order.getVersion() + ", expected " + expectedVersion);
+                    }
+                    return applyPatch(order, patch);
+                })
                 .map(orderRepository::save);
     }
 
@@ -115,24 +311,16 @@ public class OrderService {
         }
         if (patch.deliveryMethodId() != null) {
             order.setDeliveryMethodId(patch.deliveryMethodId());
+            order.setDeliveryOverridden(true);
         }
         if (patch.deliveryMethodName() != null) {
             order.setDeliveryMethodName(patch.deliveryMethodName());
+            order.setDeliveryOverridden(true);
         }
         if (patch.pickupPointId() != null) {
             order.setPickupPointId(patch.pickupPointId());
+            order.setDeliveryOverridden(true);
         }
         return order;
     }
-
-    private String generateCustomId(LocalDateTime orderDateTime) {
-        String prefix = CUSTOM_ID_FORMATTER.format(orderDateTime);
-        return orderRepository.findLastOrderInMonth(prefix)
-                .map(Order::getCustomId)
-                .map(id -> {
-                    int num = Integer.parseInt(id.split("/")[1]);
-                    return prefix + "/" + String.format("%05d", num + 1);
-                })
-                .orElse(prefix + "/00001");
-    }
 }
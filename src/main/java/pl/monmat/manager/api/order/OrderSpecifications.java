@@ -0,0 +1,63 @@
+package pl.monmat.manager.api.order;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+import pl.monmat.manager.api.order.dto.OrderSearchCriteria;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    static Specification<Order> matching(OrderSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            addEqual(predicates, cb, root.get("status"), criteria.status());
+            addRange(predicates, cb, root.get("boughtAt"), criteria.boughtFrom(), criteria.boughtTo());
+            addRange(predicates, cb, root.get("paymentAt"), criteria.paidFrom(), criteria.paidTo());
+            addEqual(predicates, cb, root.get("deliveryMethodId"), criteria.deliveryMethodId());
+            addEqual(predicates, cb, root.get("needsInvoice"), criteria.needsInvoice());
+            addEqual(predicates, cb, root.get("email"), criteria.email());
+            addEqual(predicates, cb, root.get("username"), criteria.username());
+            if (criteria.internalId() != null) {
+                // Matches the expression index on jsonb_extract_path_text(attributes, 'internalId')
+                Subquery<Long> orderIds = query.subquery(Long.class);
+                Root<OrderItem> item = orderIds.from(OrderItem.class);
+                orderIds.select(item.get("order").get("id"))
+                        .where(cb.equal(
+                                cb.function("jsonb_extract_path_text", String.class, item.get("attributes"), cb.literal("internalId")),
+                                criteria.internalId()));
+                predicates.add(root.get("id").in(orderIds));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    static Specification<Order> before(long id) {
+        return (root, query, cb) -> cb.lessThan(root.get("id"), id);
+    }
+
+    private static void addEqual(List<Predicate> predicates, CriteriaBuilder cb, Path<?> path, Object value) {
+        if (value != null) {
+            predicates.add(cb.equal(path, value));
+        }
+    }
+
+    private static void addRange(List<Predicate> predicates, CriteriaBuilder cb, Path<LocalDateTime> path,
+                                 LocalDateTime from, LocalDateTime to) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(path, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(path, to));
+        }
+    }
+}
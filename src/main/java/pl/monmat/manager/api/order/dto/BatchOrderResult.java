@@ -0,0 +1,32 @@
+package pl.monmat.manager.api.order.dto;
+
+import java.util.UUID;
+
+public record BatchOrderResult(
+        String externalOrderId,
+        Status status,
+        UUID uuid,
+        String customId,
+        String message
+) {
+    public enum Status {
+        CREATED, UPDATED, DUPLICATE, INVALID
+    }
+
+    public static BatchOrderResult created(String externalOrderId, UUID uuid, String customId) {
+        return new BatchOrderResult(externalOrderId, Status.CREATED, uuid, customId, null);
+    }
+
+    public static BatchOrderResult updated(String externalOrderId, UUID uuid, String customId) {
+        return new BatchOrderResult(externalOrderId, Status.UPDATED, uuid, customId, null);
+    }
+
+    public static BatchOrderResult duplicate(String externalOrderId) {
+        return new BatchOrderResult(externalOrderId, Status.DUPLICATE, null, null,
+                "Order with externalOrderId " + externalOrderId + " already exists");
+    }
+
+    public static BatchOrderResult invalid(String externalOrderId, String message) {
+        return new BatchOrderResult(externalOrderId, Status.INVALID, null, null, message);
+    }
+}
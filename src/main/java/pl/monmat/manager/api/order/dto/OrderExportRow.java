@@ -0,0 +1,23 @@
+package pl.monmat.manager.api.order.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record OrderExportRow(
+        String customId,
+        UUID uuid,
+        String externalOrderId,
+        String status,
+        LocalDateTime boughtAt,
+        LocalDateTime paymentAt,
+        BigDecimal totalPaidAmount,
+        String paidCurrency,
+        BigDecimal shippingCost,
+        String shippingCostCurrency,
+        Boolean needsInvoice,
+        String email,
+        String username,
+        String deliveryMethodName
+) {
+}
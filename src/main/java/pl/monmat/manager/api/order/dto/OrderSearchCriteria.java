@@ -0,0 +1,19 @@
+package pl.monmat.manager.api.order.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+public record OrderSearchCriteria(
+        String status,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime boughtFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime boughtTo,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime paidFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime paidTo,
+        String deliveryMethodId,
+        Boolean needsInvoice,
+        String email,
+        String username,
+        String internalId
+) {
+}
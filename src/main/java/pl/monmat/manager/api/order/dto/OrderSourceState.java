@@ -0,0 +1,10 @@
+package pl.monmat.manager.api.order.dto;
+
+import java.time.Instant;
+
+public record OrderSourceState(
+        String externalOrderId,
+        String sourceFingerprint,
+        Instant sourceUpdatedAt
+) {
+}
@@ -0,0 +1,17 @@
+package pl.monmat.manager.api.order.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record OrderSummary(
+        Long id,
+        String customId,
+        UUID uuid,
+        String status,
+        LocalDateTime boughtAt,
+        BigDecimal totalPaidAmount,
+        String username,
+        Long itemCount
+) {
+}
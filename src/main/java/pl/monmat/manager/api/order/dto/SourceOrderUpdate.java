@@ -0,0 +1,7 @@
+package pl.monmat.manager.api.order.dto;
+
+public record SourceOrderUpdate(
+        CreateOrderRequest request,
+        SourceRevision revision
+) {
+}
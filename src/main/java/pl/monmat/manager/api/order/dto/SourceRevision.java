@@ -0,0 +1,11 @@
+package pl.monmat.manager.api.order.dto;
+
+import java.time.Instant;
+
+public record SourceRevision(
+        String account,
+        String fingerprint,
+        Instant updatedAt,
+        boolean cancelled
+) {
+}
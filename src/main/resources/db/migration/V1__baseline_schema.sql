@@ -0,0 +1,52 @@
+CREATE TABLE IF NOT EXISTS system_settings
+(
+    setting_key   VARCHAR(255) PRIMARY KEY,
+    setting_value VARCHAR(4096)
+);
+
+CREATE TABLE IF NOT EXISTS orders
+(
+    id                     BIGSERIAL PRIMARY KEY,
+    custom_id              VARCHAR(255) UNIQUE,
+    uuid                   UUID,
+    external_order_id      VARCHAR(255) UNIQUE,
+    email                  VARCHAR(255),
+    phone_number           VARCHAR(255),
+    username               VARCHAR(255),
+    is_guest               BOOLEAN,
+    shipping_address       JSONB,
+    invoice_details        JSONB,
+    total_paid_amount      NUMERIC(38, 2),
+    paid_currency          CHAR(3),
+    shipping_cost          NUMERIC(38, 2),
+    shipping_cost_currency CHAR(3),
+    status                 VARCHAR(255),
+    bought_at              TIMESTAMP(6),
+    payment_at             TIMESTAMP(6),
+    accepted_at            TIMESTAMP(6),
+    completed_at           TIMESTAMP(6),
+    shipped_at             TIMESTAMP(6),
+    delivered_at           TIMESTAMP(6),
+    needs_invoice          BOOLEAN,
+    delivery_method_id     VARCHAR(255),
+    delivery_method_name   VARCHAR(255),
+    pickup_point_id        VARCHAR(255),
+    tracking_numbers       VARCHAR(255),
+    customer_comment       VARCHAR(255),
+    internal_notes         VARCHAR(255),
+    is_smart               BOOLEAN,
+    created_at             TIMESTAMP(6),
+    updated_at             TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS order_items
+(
+    id                BIGSERIAL PRIMARY KEY,
+    order_id          BIGINT REFERENCES orders (id),
+    external_offer_id VARCHAR(255),
+    name              VARCHAR(255),
+    quantity          INTEGER NOT NULL,
+    unit_price        NUMERIC(38, 2),
+    currency          CHAR(3),
+    attributes        JSONB
+);
@@ -0,0 +1,10 @@
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_items_id_seq INCREMENT BY 50;
+
+CREATE TABLE order_number_counters
+(
+    prefix     VARCHAR(255) PRIMARY KEY,
+    last_value BIGINT NOT NULL
+);
+
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+CREATE UNIQUE INDEX ux_orders_uuid ON orders (uuid);
+CREATE INDEX ix_orders_custom_id_prefix ON orders (custom_id text_pattern_ops);
+CREATE INDEX ix_orders_status_bought_at ON orders (status, bought_at);
+CREATE INDEX ix_orders_bought_at ON orders (bought_at);
+CREATE INDEX ix_order_items_order_id ON order_items (order_id);
+
+CREATE INDEX ix_orders_shipping_address ON orders USING gin (shipping_address jsonb_path_ops);
+CREATE INDEX ix_orders_invoice_details ON orders USING gin (invoice_details jsonb_path_ops);
+CREATE INDEX ix_order_items_attributes ON order_items USING gin (attributes jsonb_path_ops);
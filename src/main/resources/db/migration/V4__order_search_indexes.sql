@@ -0,0 +1,6 @@
+CREATE INDEX ix_orders_payment_at ON orders (payment_at);
+CREATE INDEX ix_orders_delivery_method_bought_at ON orders (delivery_method_id, bought_at);
+CREATE INDEX ix_orders_needs_invoice_bought_at ON orders (bought_at) WHERE needs_invoice;
+CREATE INDEX ix_orders_email ON orders (email);
+CREATE INDEX ix_orders_username ON orders (username);
+CREATE INDEX ix_order_items_internal_id ON order_items (jsonb_extract_path_text(attributes, 'internalId'));
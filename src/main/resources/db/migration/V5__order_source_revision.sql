@@ -0,0 +1,2 @@
+ALTER TABLE orders ADD COLUMN source_fingerprint VARCHAR(32);
+ALTER TABLE orders ADD COLUMN source_updated_at TIMESTAMP(6) WITH TIME ZONE;
@@ -0,0 +1,3 @@
+ALTER TABLE orders ADD COLUMN source_account VARCHAR(64);
+
+UPDATE orders SET source_account = 'default' WHERE external_order_id IS NOT NULL;
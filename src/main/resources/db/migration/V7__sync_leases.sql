@@ -0,0 +1,6 @@
+CREATE TABLE sync_leases
+(
+    name       VARCHAR(128) PRIMARY KEY,
+    owner      VARCHAR(128)                NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1 @@
+ALTER TABLE orders ADD COLUMN delivery_overridden BOOLEAN NOT NULL DEFAULT FALSE;
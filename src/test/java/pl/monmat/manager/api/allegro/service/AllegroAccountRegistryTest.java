@@ -0,0 +1,50 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.junit.jupiter.api.Test;
+import pl.monmat.manager.api.common.SystemSetting;
+import pl.monmat.manager.api.common.SystemSettingRepository;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AllegroAccountRegistryTest {
+
+    private final SystemSettingRepository settingRepository = mock(SystemSettingRepository.class);
+    private final AllegroAccountRegistry registry = new AllegroAccountRegistry(settingRepository);
+
+    @Test
+    void accounts_ShouldIgnoreInvalidAndDuplicateCodes() {
+        // Given
+        accountsSetting(" shop-a ,Shop-B,,shop_c,-x,shop-a,2nd ");
+
+        // When / Then
+        assertThat(registry.accounts()).containsExactly(new AllegroAccount("shop-a"), new AllegroAccount("2nd"));
+    }
+
+    @Test
+    void accounts_ShouldFallBackToDefaultWhenNothingValidIsConfigured() {
+        assertThat(registry.accounts()).containsExactly(AllegroAccount.DEFAULT);
+
+        accountsSetting("");
+        assertThat(registry.accounts()).containsExactly(AllegroAccount.DEFAULT);
+
+        accountsSetting(" , ,Invalid Code");
+        assertThat(registry.accounts()).containsExactly(AllegroAccount.DEFAULT);
+    }
+
+    @Test
+    void settingKey_ShouldNamespaceOnlyNonDefaultAccounts() {
+        assertThat(AllegroAccount.DEFAULT.settingKey("refresh-token")).isEqualTo("allegro.refresh-token");
+        assertThat(new AllegroAccount("shop-a").settingKey("refresh-token")).isEqualTo("allegro.shop-a.refresh-token");
+        assertThat(new AllegroAccount("shop-a").settingKey("order-events.last-event-id"))
+                .isEqualTo("allegro.shop-a.order-events.last-event-id");
+    }
+
+    private void accountsSetting(String value) {
+        when(settingRepository.findById("allegro.accounts"))
+                .thenReturn(Optional.of(new SystemSetting("allegro.accounts", value)));
+    }
+}
@@ -0,0 +1,85 @@
+package pl.monmat.manager.api.allegro.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+import pl.monmat.manager.api.common.SystemSetting;
+import pl.monmat.manager.api.common.SystemSettingRepository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class AllegroAuthServiceTest {
+
+    private static final Map<String, String> SETTINGS = Map.of(
+            "allegro.client-id", "client",
+            "allegro.client-secret", "secret",
+            "allegro.refresh-token", "refresh");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SystemSettingRepository settingRepository = mock(SystemSettingRepository.class);
+    private final RestClient.Builder clientBuilder = RestClient.builder();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(clientBuilder).build();
+
+    @BeforeEach
+    void setUp() {
+        when(settingRepository.findById(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(SETTINGS.get(inv.<String>getArgument(0)))
+                        .map(value -> new SystemSetting(inv.getArgument(0), value)));
+    }
+
+    @Test
+    void refresh_ShouldNotWaitForThrottlePermitHeldByApiCall() {
+        // Given
+        AllegroRateLimiter rateLimiter = new AllegroRateLimiter(1000, 1);
+        AllegroSyncMetrics metrics = new AllegroSyncMetrics(registry, new OfferAttributesCache(10, Duration.ofHours(1)), rateLimiter);
+        AllegroAuthService authService = new AllegroAuthService(clientBuilder, settingRepository);
+        RestClient apiClient = clientBuilder.clone()
+                .baseUrl("https://api.allegro.pl")
+                .requestInterceptor(new AllegroThrottlingInterceptor(rateLimiter, metrics, 0))
+                .requestInterceptor(new AllegroAuthInterceptor(authService, metrics))
+                .build();
+        server.expect(requestTo("https://allegro.pl/auth/oauth/token")).andExpect(method(POST))
+                .andRespond(withSuccess(token("first"), MediaType.APPLICATION_JSON));
+        server.expect(requestTo("https://api.allegro.pl/order/events")).andExpect(method(GET))
+                .andExpect(header("Authorization", "Bearer first"))
+                .andRespond(withStatus(HttpStatus.UNAUTHORIZED));
+        server.expect(requestTo("https://allegro.pl/auth/oauth/token")).andExpect(method(POST))
+                .andRespond(withSuccess(token("second"), MediaType.APPLICATION_JSON));
+        server.expect(requestTo("https://api.allegro.pl/order/events")).andExpect(method(GET))
+                .andExpect(header("Authorization", "Bearer second"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        // When
+        String body = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> apiClient.get().uri("/order/events").retrieve().body(String.class));
+
+        // Then
+        server.verify();
+        assertThat(body).isEqualTo("{}");
+        assertThat(registry.get("allegro.auth.token.rejected").counter().count()).isEqualTo(1);
+        assertThat(registry.get("allegro.ratelimit.wait").timer().count()).isEqualTo(1);
+    }
+
+    private static String token(String accessToken) {
+        return "{\"access_token\":\"" + accessToken + "\",\"token_type\":\"bearer\",\"expires_in\":43199}";
+    }
+}
@@ -0,0 +1,422 @@
+package pl.monmat.manager.api.allegro.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.RequestMatcher;
+import org.springframework.web.client.RestClient;
+import pl.monmat.manager.api.allegro.api.OrderEvent;
+import pl.monmat.manager.api.common.SyncLeaseService;
+import pl.monmat.manager.api.common.SystemSetting;
+import pl.monmat.manager.api.common.SystemSettingRepository;
+import pl.monmat.manager.api.order.OrderService;
+import pl.monmat.manager.api.order.dto.BatchOrderResult;
+import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+import pl.monmat.manager.api.order.dto.OrderSourceState;
+import pl.monmat.manager.api.order.dto.SourceRevision;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.queryParam;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class AllegroSyncServiceTest {
+
+    private static final Instant T1 = Instant.parse("2024-03-01T10:00:00Z");
+    private static final Instant T2 = Instant.parse("2024-03-01T11:00:00Z");
+    private static final Instant T3 = Instant.parse("2024-03-01T12:00:00Z");
+    private static final Instant T4 = Instant.parse("2024-03-01T13:00:00Z");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Map<String, String> settings = new ConcurrentHashMap<>();
+    private final Map<String, OrderSourceState> stored = new ConcurrentHashMap<>();
+    private final List<String> created = new ArrayList<>();
+    private final OrderService orderService = mock(OrderService.class);
+    private final SystemSettingRepository settingRepository = mock(SystemSettingRepository.class);
+    private final SyncLeaseService leaseService = mock(SyncLeaseService.class);
+    private final AllegroAccountRegistry accountRegistry = mock(AllegroAccountRegistry.class);
+    private final AllegroAuthService authService = mock(AllegroAuthService.class);
+    private final RestClient.Builder clientBuilder = RestClient.builder();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(clientBuilder).build();
+    private AllegroSyncService syncService;
+
+    @BeforeEach
+    void setUp() {
+        when(settingRepository.findById(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(settings.get(inv.<String>getArgument(0)))
+                        .map(value -> new SystemSetting(inv.getArgument(0), value)));
+        when(settingRepository.save(any(SystemSetting.class))).thenAnswer(inv -> {
+            SystemSetting setting = inv.getArgument(0);
+            settings.put(setting.getSettingKey(), setting.getSettingValue());
+            return setting;
+        });
+        when(orderService.findSourceStates(any())).thenAnswer(inv -> inv.<Collection<String>>getArgument(0).stream()
+                .filter(stored::containsKey)
+                .collect(Collectors.toMap(id -> id, stored::get)));
+        when(orderService.applySourceChanges(anyList(), anyList(), anyMap())).thenAnswer(inv -> {
+            List<CreateOrderRequest> requests = inv.getArgument(1);
+            Map<String, SourceRevision> revisions = inv.getArgument(2);
+            List<BatchOrderResult> results = new ArrayList<>();
+            for (CreateOrderRequest request : requests) {
+                SourceRevision revision = revisions.get(request.externalOrderId());
+                stored.put(request.externalOrderId(), new OrderSourceState(
+                        request.externalOrderId(), revision.fingerprint(), revision.updatedAt()));
+                created.add(request.externalOrderId());
+                results.add(BatchOrderResult.created(request.externalOrderId(), UUID.randomUUID(), null));
+            }
+            return results;
+        });
+        when(leaseService.tryAcquire(anyString())).thenReturn(true);
+        when(authService.getAccessToken(any())).thenReturn("token");
+        syncService = syncService(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        syncService.shutdown();
+    }
+
+    @Test
+    void syncAccount_ShouldResumeFromWatermarkWhenBacklogExceedsBudget() {
+        // Given
+        expectPage(null, form("A", T1), form("B", T2));
+        expectPage(T2, form("B", T2), form("C", T3));
+        expectPage(T3, form("C", T3), form("D", T4));
+        expectPage(T4, form("D", T4));
+
+        // When
+        for (int run = 0; run < 4; run++) {
+            syncService.syncAccount(AllegroAccount.DEFAULT);
+        }
+
+        // Then
+        server.verify();
+        assertThat(created).containsExactly("A", "B", "C", "D");
+        assertThat(settings).containsEntry("allegro.order-pages.updated-at-watermark", T4.toString());
+    }
+
+    @Test
+    void syncOrders_ShouldSkipAccountWhoseRunIsStillGoing() throws Exception {
+        // Given
+        AllegroAccount slow = new AllegroAccount("slow");
+        AllegroAccount fast = new AllegroAccount("fast");
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        when(accountRegistry.accounts()).thenReturn(List.of(slow, fast));
+        when(settingRepository.findById(slow.settingKey("order-pages.updated-at-watermark"))).thenAnswer(inv -> {
+            slowStarted.countDown();
+            releaseSlow.await();
+            throw new IllegalStateException("stopped");
+        });
+        when(settingRepository.findById(fast.settingKey("order-pages.updated-at-watermark")))
+                .thenThrow(new IllegalStateException("stopped"));
+        syncService.shutdown();
+        syncService = syncService(2);
+
+        // When
+        syncService.syncOrders();
+        assertThat(slowStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(leaseService, timeout(5000)).release("allegro.sync.fast");
+        syncService.syncOrders();
+        releaseSlow.countDown();
+
+        // Then
+        verify(leaseService, timeout(5000)).release("allegro.sync.slow");
+        verify(leaseService, times(1)).tryAcquire("allegro.sync.slow");
+        verify(leaseService, atLeastOnce()).tryAcquire("allegro.sync.fast");
+    }
+
+    @Test
+    void syncOrders_ShouldStopPagingAfterLeaseRenewalFails() {
+        // Given
+        when(accountRegistry.accounts()).thenReturn(List.of(AllegroAccount.DEFAULT));
+        when(leaseService.renew(anyString())).thenReturn(false);
+        syncService.shutdown();
+        syncService = syncService(1, 5);
+        server.expect(method(GET))
+                .andExpect(queryParam("offset", "0"))
+                .andRespond(request -> {
+                    syncService.renewLeases();
+                    return withSuccess("{\"checkoutForms\":[" + form("A", T1) + "," + form("B", T2) + "],\"count\":2}",
+                            MediaType.APPLICATION_JSON).createResponse(request);
+                });
+
+        // When
+        syncService.syncOrders();
+
+        // Then
+        verify(leaseService, timeout(5000)).release("allegro.sync.default");
+        server.verify();
+        assertThat(created).containsExactly("A", "B");
+        assertThat(settings).containsEntry("allegro.order-pages.updated-at-watermark", T2.toString());
+    }
+
+    @Test
+    void renewLeases_ShouldSkipAccountsWhoseLeaseWasNotAcquired() {
+        // Given
+        when(accountRegistry.accounts()).thenReturn(List.of(AllegroAccount.DEFAULT));
+        when(leaseService.tryAcquire(anyString())).thenReturn(false);
+
+        // When
+        syncService.syncOrders();
+        syncService.renewLeases();
+
+        // Then
+        verify(leaseService, never()).renew(anyString());
+    }
+
+    @Test
+    void syncAccount_ShouldReportFailedRunWhenOrdersAreNotPersisted() {
+        // Given
+        when(orderService.applySourceChanges(anyList(), anyList(), anyMap()))
+                .thenThrow(new IllegalStateException("database unavailable"));
+        expectPage(null, form("A", T1));
+
+        // When
+        syncService.syncAccount(AllegroAccount.DEFAULT);
+
+        // Then
+        server.verify();
+        assertThat(registry.get("allegro.sync.duration").tag("outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(registry.find("allegro.sync.duration").tag("outcome", "success").timer()).isNull();
+        assertThat(settings).containsEntry("allegro.order-pages.updated-at-watermark", T1.toString());
+    }
+
+    @Test
+    void syncAccount_ShouldPickUpLatePaidOrderBoughtBeforeWatermark() {
+        // Given
+        expectPage(null, form("A", T2), form("B", T3));
+        expectPage(T3, form("B", T3), form("LATE", T1, T4));
+
+        // When
+        syncService.syncAccount(AllegroAccount.DEFAULT);
+        syncService.syncAccount(AllegroAccount.DEFAULT);
+
+        // Then
+        server.verify();
+        assertThat(created).containsExactly("A", "B", "LATE");
+        assertThat(settings).containsEntry("allegro.order-pages.updated-at-watermark", T4.toString());
+    }
+
+    @Test
+    void syncAccount_ShouldKeepEventCursorUnsetWhenBootstrapStopsOnBudget() {
+        // Given
+        syncService.shutdown();
+        syncService = syncService(1, 1, AllegroSyncService.SyncMode.EVENTS);
+        expectEventStats("e9");
+        expectPage(null, form("A", T1), form("B", T2));
+        expectEventStats("e10");
+        expectPage(T2, form("B", T2), form("C", T3));
+        expectEventStats("e11");
+        expectPage(T3, form("C", T3));
+
+        // When
+        syncService.syncAccount(AllegroAccount.DEFAULT);
+        boolean cursorAfterBudgetStop = settings.containsKey("allegro.order-events.last-event-id");
+        syncService.syncAccount(AllegroAccount.DEFAULT);
+        syncService.syncAccount(AllegroAccount.DEFAULT);
+
+        // Then
+        server.verify();
+        assertThat(cursorAfterBudgetStop).isFalse();
+        assertThat(created).containsExactly("A", "B", "C");
+        assertThat(settings).containsEntry("allegro.order-events.last-event-id", "e11");
+        assertThat(registry.get("allegro.sync.duration").tag("outcome", "error").timer().count()).isEqualTo(2);
+        assertThat(registry.get("allegro.sync.duration").tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void syncAccount_ShouldKeepEventCursorUnsetWhenBootstrapPageSyncFails() {
+        // Given
+        when(orderService.applySourceChanges(anyList(), anyList(), anyMap()))
+                .thenThrow(new IllegalStateException("database unavailable"));
+        syncService.shutdown();
+        syncService = syncService(1, 5, AllegroSyncService.SyncMode.EVENTS);
+        expectEventStats("e9");
+        expectPage(null, form("A", T1));
+
+        // When
+        syncService.syncAccount(AllegroAccount.DEFAULT);
+
+        // Then
+        server.verify();
+        assertThat(settings).doesNotContainKey("allegro.order-events.last-event-id");
+        assertThat(registry.get("allegro.sync.duration").tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void syncAccount_ShouldLeaveOrderUnsavedWhenOfferFetchStaysThrottled() {
+        // Given
+        expectPage(null, formWithOffer("A", T1, "offer-1"));
+        server.expect(requestTo("https://api.allegro.pl/sale/product-offers/offer-1"))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "0"));
+        expectPage(T1, formWithOffer("A", T1, "offer-1"));
+        server.expect(requestTo("https://api.allegro.pl/sale/product-offers/offer-1"))
+                .andRespond(withSuccess("{\"id\":\"offer-1\",\"category\":{\"id\":\"257931\"}}",
+                        MediaType.APPLICATION_JSON));
+
+        // When
+        syncService.syncAccount(AllegroAccount.DEFAULT);
+        List<String> createdWhileThrottled = List.copyOf(created);
+        syncService.syncAccount(AllegroAccount.DEFAULT);
+
+        // Then
+        server.verify();
+        assertThat(createdWhileThrottled).isEmpty();
+        assertThat(created).containsExactly("A");
+        assertThat(registry.get("allegro.sync.duration").tag("outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(registry.get("allegro.sync.duration").tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void nextPageWatermark_ShouldStopAtFirstFailedForm() {
+        List<AllegroSyncService.PageMark> streamed = List.of(
+                new AllegroSyncService.PageMark("A", T1),
+                new AllegroSyncService.PageMark("B", T2),
+                new AllegroSyncService.PageMark("C", T3));
+
+        assertThat(AllegroSyncService.nextPageWatermark(streamed, Set.of(), null)).isEqualTo(T3);
+        assertThat(AllegroSyncService.nextPageWatermark(streamed, Set.of("B"), null)).isEqualTo(T2);
+        assertThat(AllegroSyncService.nextPageWatermark(List.of(), Set.of(), T1)).isEqualTo(T1);
+    }
+
+    @Test
+    void lastProcessedEventId_ShouldStopBeforeFirstFailedForm() {
+        List<OrderEvent> events = List.of(
+                event("e1", "form-a"),
+                event("e2", "form-b"),
+                event("e3", "form-a"),
+                event("e4", "form-c"));
+
+        assertThat(AllegroSyncService.lastProcessedEventId(events, Set.of())).isEqualTo("e4");
+        assertThat(AllegroSyncService.lastProcessedEventId(events, Set.of("form-c"))).isEqualTo("e3");
+        assertThat(AllegroSyncService.lastProcessedEventId(events, Set.of("form-b"))).isEqualTo("e1");
+        assertThat(AllegroSyncService.lastProcessedEventId(events, Set.of("form-a"))).isNull();
+    }
+
+    private AllegroSyncService syncService(int accountConcurrency) {
+        return syncService(accountConcurrency, 1);
+    }
+
+    private AllegroSyncService syncService(int accountConcurrency, int maxPagesPerRun) {
+        return syncService(accountConcurrency, maxPagesPerRun, AllegroSyncService.SyncMode.PAGE);
+    }
+
+    private AllegroSyncService syncService(int accountConcurrency, int maxPagesPerRun, AllegroSyncService.SyncMode mode) {
+        OfferAttributesCache offerCache = new OfferAttributesCache(100, Duration.ofHours(1));
+        AllegroRateLimiter rateLimiter = new AllegroRateLimiter(1000, 4);
+        AllegroSyncMetrics metrics = new AllegroSyncMetrics(registry, offerCache, rateLimiter);
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        return new AllegroSyncService(
+                orderService,
+                new ProductAttributeParser(jsonMapper, Set.of()),
+                new CheckoutFormMapper(),
+                offerCache,
+                metrics,
+                settingRepository,
+                accountRegistry,
+                leaseService,
+                clientBuilder,
+                jsonMapper,
+                new AllegroThrottlingInterceptor(rateLimiter, metrics, 0),
+                new AllegroAuthInterceptor(authService, metrics),
+                2,
+                mode,
+                2,
+                maxPagesPerRun,
+                Duration.ofMinutes(1),
+                25,
+                4,
+                accountConcurrency,
+                2,
+                100);
+    }
+
+    private void expectPage(Instant watermark, String... forms) {
+        server.expect(method(GET))
+                .andExpect(queryParam("offset", "0"))
+                .andExpect(queryParam("sort", "updatedAt"))
+                .andExpect(updatedAtFrom(watermark))
+                .andRespond(withSuccess("{\"checkoutForms\":[" + String.join(",", forms) + "],\"count\":"
+                        + forms.length + "}", MediaType.APPLICATION_JSON));
+    }
+
+    private void expectEventStats(String latestEventId) {
+        server.expect(requestTo("https://api.allegro.pl/order/event-stats"))
+                .andRespond(withSuccess("{\"latestEvent\":{\"id\":\"" + latestEventId + "\"}}",
+                        MediaType.APPLICATION_JSON));
+    }
+
+    private static RequestMatcher updatedAtFrom(Instant watermark) {
+        return request -> {
+            String query = URLDecoder.decode(request.getURI().getRawQuery(), StandardCharsets.UTF_8);
+            assertThat(query).doesNotContain("boughtAt.gte");
+            if (watermark == null) {
+                assertThat(query).doesNotContain("updatedAt.gte");
+            } else {
+                assertThat(query).contains("updatedAt.gte=" + watermark);
+            }
+        };
+    }
+
+    private static String form(String id, Instant updatedAt) {
+        return form(id, updatedAt, updatedAt);
+    }
+
+    private static String form(String id, Instant boughtAt, Instant updatedAt) {
+        return """
+                {"id":"%s","status":"READY_FOR_PROCESSING","updatedAt":"%s",
+                 "buyer":{"email":"%s@example.com"},
+                 "lineItems":[{"id":"li-%s","quantity":1,"boughtAt":"%s"}]}
+                """.formatted(id, updatedAt, id, id, boughtAt);
+    }
+
+    private static String formWithOffer(String id, Instant updatedAt, String offerId) {
+        return """
+                {"id":"%s","status":"READY_FOR_PROCESSING","updatedAt":"%s",
+                 "buyer":{"email":"%s@example.com"},
+                 "lineItems":[{"id":"li-%s","quantity":1,"boughtAt":"%s","offer":{"id":"%s","name":"Offer"}}]}
+                """.formatted(id, updatedAt, id, id, updatedAt, offerId);
+    }
+
+    private static OrderEvent event(String id, String checkoutFormId) {
+        return new OrderEvent(id, new OrderEvent.EventOrder(new OrderEvent.CheckoutFormRef(checkoutFormId)),
+                "BUYER_MODIFIED", null);
+    }
+}
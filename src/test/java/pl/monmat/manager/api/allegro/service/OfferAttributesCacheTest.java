@@ -0,0 +1,64 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OfferAttributesCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void get_ShouldExpireEntriesAfterTtl() {
+        // Given
+        OfferAttributesCache cache = new OfferAttributesCache(10, Duration.ofMinutes(5), now::get);
+        cache.put("offer-1", Map.of("categoryId", "1"));
+
+        // When / Then
+        now.addAndGet(Duration.ofMinutes(5).minusNanos(1).toNanos());
+        assertThat(cache.get("offer-1")).contains(Map.of("categoryId", "1"));
+        now.addAndGet(1);
+        assertThat(cache.get("offer-1")).isEmpty();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.stats()).isEqualTo(new OfferAttributesCache.CacheStats(1, 1, 1, 0));
+    }
+
+    @Test
+    void put_ShouldEvictLeastRecentlyUsedAtCapacity() {
+        // Given
+        OfferAttributesCache cache = new OfferAttributesCache(2, Duration.ofHours(1), now::get);
+        cache.put("offer-1", Map.of());
+        cache.put("offer-2", Map.of());
+        cache.get("offer-1");
+
+        // When
+        cache.put("offer-3", Map.of());
+
+        // Then
+        assertThat(cache.get("offer-2")).isEmpty();
+        assertThat(cache.get("offer-1")).isPresent();
+        assertThat(cache.get("offer-3")).isPresent();
+        assertThat(cache.stats()).isEqualTo(new OfferAttributesCache.CacheStats(3, 1, 1, 2));
+    }
+
+    @Test
+    void get_ShouldCountHitsAndMisses() {
+        // Given
+        OfferAttributesCache cache = new OfferAttributesCache(10, Duration.ofHours(1), now::get);
+        cache.put("offer-1", Map.of("internalId", "A"));
+
+        // When
+        cache.get("offer-1");
+        cache.get("offer-1");
+        cache.get("missing");
+        cache.invalidate("offer-1");
+        cache.get("offer-1");
+
+        // Then
+        assertThat(cache.stats()).isEqualTo(new OfferAttributesCache.CacheStats(2, 2, 0, 0));
+    }
+}
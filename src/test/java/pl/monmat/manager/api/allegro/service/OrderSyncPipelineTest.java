@@ -0,0 +1,169 @@
+package pl.monmat.manager.api.allegro.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import pl.monmat.manager.api.allegro.api.CheckoutForm;
+import pl.monmat.manager.api.order.dto.BatchOrderResult;
+import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class OrderSyncPipelineTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OfferAttributesCache offerCache = new OfferAttributesCache(10, Duration.ofHours(1));
+    private final AllegroSyncMetrics metrics = new AllegroSyncMetrics(registry, offerCache, new AllegroRateLimiter(10, 1));
+    private final List<List<String>> transactions = new CopyOnWriteArrayList<>();
+    private final List<BatchOrderResult> results = new CopyOnWriteArrayList<>();
+
+    @Test
+    void run_ShouldRetryFailedBatchOrderByOrder() {
+        // Given
+        OrderSyncPipeline pipeline = pipeline(1, 10, batch -> {
+            List<String> ids = batch.orderIds();
+            transactions.add(ids);
+            if (ids.contains("bad")) {
+                throw new IllegalStateException("constraint violation");
+            }
+            return created(ids);
+        });
+
+        // When
+        OrderSyncPipeline.Result result = pipeline.run(sink -> sink.accept(forms("a", "bad", "c")));
+
+        // Then
+        assertThat(transactions).containsExactly(List.of("a", "bad", "c"), List.of("a"), List.of("bad"), List.of("c"));
+        assertThat(results).extracting(BatchOrderResult::externalOrderId).containsExactly("a", "c");
+        assertThat(result.failedOrderIds()).containsExactly("bad");
+    }
+
+    @Test
+    void run_ShouldPersistInFetchOrderWhenEnrichFinishesOutOfOrder() {
+        // Given
+        CountDownLatch laterChunkEnriched = new CountDownLatch(1);
+        List<String> enrichOrder = new CopyOnWriteArrayList<>();
+        OrderSyncPipeline pipeline = pipeline(2, 1, forms -> {
+            String id = forms.getFirst().id();
+            if (id.equals("a")) {
+                await(laterChunkEnriched);
+            }
+            enrichOrder.add(id);
+            if (id.equals("c")) {
+                laterChunkEnriched.countDown();
+            }
+            return enrich(forms);
+        }, batch -> {
+            transactions.add(batch.orderIds());
+            return created(batch.orderIds());
+        });
+
+        // When
+        OrderSyncPipeline.Result result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> pipeline.run(sink -> {
+            sink.accept(forms("a"));
+            sink.accept(forms("b"));
+            sink.accept(forms("c"));
+        }));
+
+        // Then
+        assertThat(enrichOrder.getLast()).isEqualTo("a");
+        assertThat(transactions).containsExactly(List.of("a"), List.of("b"), List.of("c"));
+        assertThat(results).extracting(BatchOrderResult::externalOrderId).containsExactly("a", "b", "c");
+        assertThat(result.succeeded()).isTrue();
+    }
+
+    @Test
+    void run_ShouldFailWithoutHangingWhenSourceFails() {
+        // Given
+        OrderSyncPipeline pipeline = pipeline(2, 10, batch -> created(batch.orderIds()));
+
+        // When / Then
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThatThrownBy(() -> pipeline.run(sink -> {
+            sink.accept(forms("a"));
+            sink.accept(forms("b"));
+            sink.accept(forms("c"));
+            throw new IllegalStateException("page fetch failed");
+        })).isInstanceOf(IllegalStateException.class).hasRootCauseMessage("page fetch failed"));
+    }
+
+    @Test
+    void run_ShouldReportEveryOrderWithoutHangingWhenPersisterFails() {
+        // Given
+        OrderSyncPipeline pipeline = pipeline(2, 2, batch -> {
+            throw new IllegalStateException("database unavailable");
+        });
+
+        // When
+        OrderSyncPipeline.Result result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> pipeline.run(sink -> {
+            for (String id : List.of("a", "b", "c", "d", "e", "f", "g")) {
+                sink.accept(forms(id));
+            }
+        }));
+
+        // Then
+        assertThat(result.forms()).isEqualTo(7);
+        assertThat(result.succeeded()).isFalse();
+        assertThat(result.failedOrderIds()).containsExactlyInAnyOrder("a", "b", "c", "d", "e", "f", "g");
+        assertThat(results).isEmpty();
+    }
+
+    private OrderSyncPipeline pipeline(
+            int enrichWorkers,
+            int persistBatchSize,
+            Function<OrderSyncPipeline.PersistBatch, List<BatchOrderResult>> persister
+    ) {
+        return pipeline(enrichWorkers, persistBatchSize, OrderSyncPipelineTest::enrich, persister);
+    }
+
+    private OrderSyncPipeline pipeline(
+            int enrichWorkers,
+            int persistBatchSize,
+            Function<List<CheckoutForm>, OrderSyncPipeline.PersistBatch> enricher,
+            Function<OrderSyncPipeline.PersistBatch, List<BatchOrderResult>> persister
+    ) {
+        return new OrderSyncPipeline("test", enrichWorkers, 2, persistBatchSize, enricher, persister, results::add, metrics);
+    }
+
+    static OrderSyncPipeline.PersistBatch enrich(List<CheckoutForm> forms) {
+        List<CreateOrderRequest> requests = new ArrayList<>();
+        for (CheckoutForm form : forms) {
+            requests.add(new CreateOrderRequest(form.id(), form.id() + "@example.com", null, null, null, null, null,
+                    null, null, null, null, null, null, null, null, null, null, null, null, List.of()));
+        }
+        return new OrderSyncPipeline.PersistBatch(List.of(), requests, Map.of(), List.of());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out waiting for a later chunk");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static List<CheckoutForm> forms(String... ids) {
+        List<CheckoutForm> forms = new ArrayList<>();
+        for (String id : ids) {
+            forms.add(new CheckoutForm(id, null, null, null, null, null, "READY_FOR_PROCESSING", null, null, null));
+        }
+        return forms;
+    }
+
+    static List<BatchOrderResult> created(List<String> ids) {
+        return ids.stream().map(id -> BatchOrderResult.created(id, UUID.randomUUID(), null)).toList();
+    }
+}
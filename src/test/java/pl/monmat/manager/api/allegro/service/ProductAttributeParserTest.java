@@ -0,0 +1,74 @@
+package pl.monmat.manager.api.allegro.service;
+
+import org.junit.jupiter.api.Test;
+import pl.monmat.manager.api.allegro.api.AllegroOfferDetails;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductAttributeParserTest {
+
+    private final ProductAttributeParser parser = new ProductAttributeParser(JsonMapper.builder().build(), Set.of("236"));
+
+    @Test
+    void findInternalId_ShouldMatchFirstSingleLineMarker() {
+        assertThat(ProductAttributeParser.findInternalId("<p>Opis</p><p>// ABC-1</p><p>// XYZ-2</p>")).isEqualTo("ABC-1");
+        assertThat(ProductAttributeParser.findInternalId("<p>// broken\nline</p><p>// OK-3</p>")).isEqualTo("OK-3");
+        assertThat(ProductAttributeParser.findInternalId("<p>// unterminated")).isNull();
+        assertThat(ProductAttributeParser.findInternalId("<p>//NO-SPACE</p>")).isNull();
+    }
+
+    @Test
+    void extractAttributes_ShouldStreamOnlyRequestedFields() {
+        // Given
+        String json = """
+                {"id":"1","images":[{"url":"a"}],
+                 "description":{"sections":[
+                   {"items":[{"type":"IMAGE","url":"x"},{"type":"TEXT","content":"<p>intro</p>"}]},
+                   {"items":[{"type":"TEXT","content":"<h1>T</h1><p>// KOSZ-M-01</p>"}]}]},
+                 "parameters":[{"id":"236","values":["M"]},{"id":"11323","values":["Nowy"]}],
+                 "category":{"id":"257931","name":"Koszulki"}}
+                """;
+
+        // When
+        Map<String, Object> attributes = parser.extractAttributes(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertThat(attributes)
+                .containsEntry("categoryId", "257931")
+                .containsEntry("internalId", "KOSZ-M-01")
+                .containsEntry("parameters", Map.of("236", List.of("M")));
+    }
+
+    @Test
+    void extractAttributes_ShouldMatchBoundRecordResult() {
+        // Given
+        AllegroOfferDetails details = new AllegroOfferDetails("1",
+                new AllegroOfferDetails.Category("257931", "Koszulki"),
+                List.of(new AllegroOfferDetails.Parameter("236", List.of("236_4"), List.of("M"))),
+                new AllegroOfferDetails.Description(List.of(new AllegroOfferDetails.Section(List.of(
+                        new AllegroOfferDetails.SectionItem("TEXT", "<p>// KOSZ-M-01</p>"))))));
+        String json = """
+                {"id":"1","category":{"id":"257931"},"parameters":[{"id":"236","valueIds":["236_4"],"values":["M"]}],
+                 "description":{"sections":[{"items":[{"type":"TEXT","content":"<p>// KOSZ-M-01</p>"}]}]}}
+                """;
+
+        // When / Then
+        assertThat(parser.extractAttributes(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))))
+                .isEqualTo(parser.extractAttributes(details));
+    }
+
+    @Test
+    void extractAttributes_ShouldReturnEmptyWithoutCategory() {
+        String json = "{\"category\":null,\"description\":{\"sections\":[{\"items\":[{\"content\":\"<p>// A</p>\"}]}]}}";
+
+        assertThat(parser.extractAttributes(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))).isEmpty();
+    }
+}
@@ -0,0 +1,70 @@
+package pl.monmat.manager.api.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SyncLeaseServiceTest {
+
+    @Autowired
+    private SyncLeaseRepository leaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String leaseName = "test.lease." + UUID.randomUUID();
+
+    @AfterEach
+    void cleanUp() {
+        leaseRepository.deleteById(leaseName);
+    }
+
+    @Test
+    void shouldGrantLeaseToOneNodeAtATime() {
+        // Given
+        SyncLeaseService nodeA = node("node-a", Duration.ofMinutes(5));
+        SyncLeaseService nodeB = node("node-b", Duration.ofMinutes(5));
+
+        // When / Then
+        assertThat(nodeA.tryAcquire(leaseName)).isTrue();
+        assertThat(nodeB.tryAcquire(leaseName)).isFalse();
+        assertThat(nodeA.tryAcquire(leaseName)).isTrue();
+        assertThat(nodeB.renew(leaseName)).isFalse();
+        assertThat(nodeA.renew(leaseName)).isTrue();
+
+        nodeA.release(leaseName);
+        assertThat(nodeB.tryAcquire(leaseName)).isTrue();
+        assertThat(leaseRepository.findById(leaseName)).get()
+                .extracting(SyncLease::getOwner)
+                .isEqualTo("node-b");
+    }
+
+    @Test
+    void shouldLetAnotherNodeTakeOverExpiredLease() {
+        // Given
+        SyncLeaseService crashedNode = node("node-a", Duration.ofSeconds(-1));
+        SyncLeaseService survivor = node("node-b", Duration.ofMinutes(5));
+        assertThat(crashedNode.tryAcquire(leaseName)).isTrue();
+
+        // When
+        boolean acquired = survivor.tryAcquire(leaseName);
+
+        // Then
+        assertThat(acquired).isTrue();
+        assertThat(crashedNode.renew(leaseName)).isFalse();
+    }
+
+    private SyncLeaseService node(String nodeId, Duration ttl) {
+        return new SyncLeaseService(leaseRepository, transactionManager, nodeId, ttl);
+    }
+}
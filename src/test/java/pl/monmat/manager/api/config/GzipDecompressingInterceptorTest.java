@@ -0,0 +1,50 @@
+package pl.monmat.manager.api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GzipDecompressingInterceptorTest {
+
+    @Test
+    void intercept_ShouldDecompressBodyAndDropEncodingHeaders() throws Exception {
+        // Given
+        byte[] compressed = gzip("{\"checkoutForms\":[]}");
+        MockClientHttpResponse raw = new MockClientHttpResponse(compressed, HttpStatus.OK);
+        raw.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        raw.getHeaders().setContentLength(compressed.length);
+        raw.getHeaders().set(HttpHeaders.CONTENT_TYPE, "application/json");
+        MockClientHttpRequest request = new MockClientHttpRequest(
+                HttpMethod.GET, URI.create("https://api.allegro.pl/order/checkout-forms"));
+
+        // When
+        ClientHttpResponse response = new GzipDecompressingInterceptor()
+                .intercept(request, new byte[0], (req, body) -> raw);
+
+        // Then
+        assertThat(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING)).isEqualTo("gzip");
+        assertThat(new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"checkoutForms\":[]}");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH)).isNull();
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE)).isEqualTo("application/json");
+    }
+
+    private static byte[] gzip(String text) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
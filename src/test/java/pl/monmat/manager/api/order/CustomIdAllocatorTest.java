@@ -0,0 +1,134 @@
+package pl.monmat.manager.api.order;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CustomIdAllocatorTest {
+
+    private static final String OCTOBER = "9810";
+    private static final String NOVEMBER = "9811";
+    private static final String DECEMBER = "9812";
+
+    @Autowired
+    private OrderNumberCounterRepository counterRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void resetCounters() {
+        cleanUp();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        counterRepository.deleteAllById(List.of(OCTOBER, NOVEMBER, DECEMBER));
+        jdbcTemplate.update("DELETE FROM orders WHERE custom_id LIKE '" + OCTOBER + "/%'");
+    }
+
+    @Test
+    void shouldAllocateDistinctIdsAcrossConcurrentNodes() throws Exception {
+        // Given
+        CustomIdAllocator nodeA = allocator(1);
+        CustomIdAllocator nodeB = allocator(5);
+        LocalDateTime boughtAt = LocalDateTime.of(2098, 11, 15, 12, 0);
+
+        // When
+        List<Future<String>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 200; i++) {
+                CustomIdAllocator node = i % 2 == 0 ? nodeA : nodeB;
+                futures.add(executor.submit(() -> node.nextCustomId(boughtAt)));
+            }
+        }
+        Set<String> ids = new HashSet<>();
+        for (Future<String> future : futures) {
+            ids.add(future.get());
+        }
+
+        // Then
+        assertThat(ids).hasSize(200).allMatch(id -> id.startsWith(NOVEMBER + "/"));
+        long lastValue = counterRepository.findById(NOVEMBER).orElseThrow().getLastValue();
+        assertThat(LongStream.rangeClosed(1, lastValue).mapToObj(n -> NOVEMBER + "/" + String.format("%05d", n)))
+                .containsAll(ids);
+    }
+
+    @Test
+    void shouldAllocateBulkIdsPerMonthAcrossBoundary() {
+        // Given
+        CustomIdAllocator allocator = allocator(1);
+
+        // When
+        List<String> november = allocator.nextCustomIds(NOVEMBER, 3);
+        List<String> december = allocator.nextCustomIds(DECEMBER, 5);
+        String lastNovember = allocator.nextCustomId(LocalDateTime.of(2098, 11, 30, 23, 59, 59));
+        String firstDecemberSingle = allocator.nextCustomId(LocalDateTime.of(2098, 12, 1, 0, 0));
+
+        // Then
+        assertThat(november).containsExactly("9811/00001", "9811/00002", "9811/00003");
+        assertThat(december).containsExactly("9812/00001", "9812/00002", "9812/00003", "9812/00004", "9812/00005");
+        assertThat(lastNovember).isEqualTo("9811/00004");
+        assertThat(firstDecemberSingle).isEqualTo("9812/00006");
+    }
+
+    @Test
+    void shouldHandOutCachedBlockBeforeReservingAgain() {
+        // Given
+        CustomIdAllocator blockNode = allocator(10);
+        CustomIdAllocator otherNode = allocator(1);
+
+        // When
+        List<String> first = blockNode.nextCustomIds(NOVEMBER, 2);
+        String other = otherNode.nextCustomId(LocalDateTime.of(2098, 11, 1, 0, 0));
+        List<String> second = blockNode.nextCustomIds(NOVEMBER, 9);
+
+        // Then
+        assertThat(first).containsExactly("9811/00001", "9811/00002");
+        assertThat(other).isEqualTo("9811/00011");
+        assertThat(second).startsWith("9811/00003").contains("9811/00010", "9811/00012").doesNotContain(other);
+    }
+
+    @Test
+    void shouldSeedNewCounterFromHighestNumberNotLatestRow() {
+        // Given
+        jdbcTemplate.update("INSERT INTO orders (id, custom_id) VALUES (?, ?)", 981_000_000_001L, OCTOBER + "/00042");
+        jdbcTemplate.update("INSERT INTO orders (id, custom_id) VALUES (?, ?)", 981_000_000_002L, OCTOBER + "/00007");
+        CustomIdAllocator allocator = allocator(1);
+
+        // When
+        String next = allocator.nextCustomId(LocalDateTime.of(2098, 10, 20, 8, 0));
+
+        // Then
+        assertThat(next).isEqualTo("9810/00043");
+    }
+
+    private CustomIdAllocator allocator(int blockSize) {
+        return new CustomIdAllocator(counterRepository, orderRepository, transactionManager, blockSize);
+    }
+}
@@ -0,0 +1,108 @@
+package pl.monmat.manager.api.order;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderExportTest {
+
+    private static final String USERNAME = "Jan \"JJ\", Kowalski\nline 2\t\u0001";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    private final String externalOrderId = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void createOrder() {
+        CreateOrderRequest request = new CreateOrderRequest(
+                externalOrderId, "export,\"quoted\"@test.com", LocalDateTime.of(2097, 5, 5, 10, 30), "987654321",
+                USERNAME, false, null, new BigDecimal("1234.50"), "PLN", null, new BigDecimal("0.10"), "PLN",
+                "courier", "Kurier, \"DPD\"", null, false, true, null, null, null);
+        orderService.createOrder(request);
+        entityManager.flush();
+    }
+
+    @Test
+    @Transactional
+    void shouldExportNdjsonLinesWithEscapedFields() throws Exception {
+        // When
+        String body = mockMvc.perform(get("/api/orders/export")
+                        .param("from", "2097-05-05T00:00:00")
+                        .param("to", "2097-05-06T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(1);
+        JsonNode row = jsonMapper.readTree(lines[0]);
+        assertThat(row.get("externalOrderId").asString()).isEqualTo(externalOrderId);
+        assertThat(row.get("email").asString()).isEqualTo("export,\"quoted\"@test.com");
+        assertThat(row.get("username").asString()).isEqualTo(USERNAME);
+        assertThat(row.get("deliveryMethodName").asString()).isEqualTo("Kurier, \"DPD\"");
+        assertThat(row.get("boughtAt").asString()).isEqualTo("2097-05-05T10:30:00");
+        assertThat(row.get("totalPaidAmount").decimalValue()).isEqualByComparingTo("1234.50");
+        assertThat(row.get("needsInvoice").asBoolean()).isTrue();
+        assertThat(row.get("paymentAt").isNull()).isTrue();
+    }
+
+    @Test
+    @Transactional
+    void shouldExportCsvWithQuotedFields() throws Exception {
+        // When
+        String body = mockMvc.perform(get("/api/orders/export")
+                        .param("from", "2097-05-05T00:00:00")
+                        .param("to", "2097-05-06T00:00:00")
+                        .param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertThat(body).startsWith("customId,uuid,externalOrderId,status,boughtAt,");
+        assertThat(body).contains("," + externalOrderId + ",NEW,2097-05-05T10:30,,1234.50,PLN,0.10,PLN,true,"
+                + "\"export,\"\"quoted\"\"@test.com\","
+                + "\"Jan \"\"JJ\"\", Kowalski\nline 2\t\u0001\","
+                + "\"Kurier, \"\"DPD\"\"\"\n");
+    }
+
+    @Test
+    @Transactional
+    void shouldRejectUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/orders/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
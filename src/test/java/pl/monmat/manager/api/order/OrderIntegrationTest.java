@@ -6,10 +6,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
+import pl.monmat.manager.api.order.dto.BatchOrderResult;
 import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+import pl.monmat.manager.api.order.dto.PatchOrderRequest;
+import pl.monmat.manager.api.order.dto.SourceOrderUpdate;
+import pl.monmat.manager.api.order.dto.SourceRevision;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -70,4 +78,146 @@ class OrderIntegrationTest {
             entityManager.flush();
         }).isInstanceOf(DataIntegrityViolationException.class);
     }
+
+    @Test
+    @Transactional
+    void shouldRejectPatchWithStaleVersion() {
+        // Given
+        CreateOrderRequest request = new CreateOrderRequest(
+                UUID.randomUUID().toString(), "integration@test.com", null, "987654321", "IntUser",
+                false, null, BigDecimal.valueOf(200), "USD", null, BigDecimal.ZERO, "USD",
+                "pickup", "Pickup Point", "P1", true, false, null, "Comment", null);
+        Order order = orderService.createOrder(request);
+        entityManager.flush();
+        Long version = order.getVersion();
+        PatchOrderRequest patch = new PatchOrderRequest(
+                null, "ACCEPTED", null, null, null, null, null, null, null, null, null);
+
+        // When / Then
+        assertThat(orderService.patchOrder(order.getUuid(), patch, version)).isPresent();
+        entityManager.flush();
+        assertThat(order.getVersion()).isGreaterThan(version);
+        assertThatThrownBy(() -> orderService.patchOrder(order.getUuid(), patch, version))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    @Transactional
+    void shouldCreateBatchAndReportDuplicates() {
+        // Given
+        String firstId = UUID.randomUUID().toString();
+        String secondId = UUID.randomUUID().toString();
+        CreateOrderRequest first = new CreateOrderRequest(
+                firstId, "batch@test.com", null, "987654321", "BatchUser",
+                false, null, BigDecimal.valueOf(50), "PLN", null, BigDecimal.ZERO, "PLN",
+                "pickup", "Pickup Point", "P1", true, false, null, null, null);
+        CreateOrderRequest second = new CreateOrderRequest(
+                secondId, "batch@test.com", null, "987654321", "BatchUser",
+                false, null, BigDecimal.valueOf(75), "PLN", null, BigDecimal.ZERO, "PLN",
+                "pickup", "Pickup Point", "P1", true, false, null, null, null);
+
+        // When
+        List<BatchOrderResult> results = orderService.createOrders(List.of(first, second, first));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        assertThat(results).extracting(BatchOrderResult::status).containsExactly(
+                BatchOrderResult.Status.CREATED, BatchOrderResult.Status.CREATED, BatchOrderResult.Status.DUPLICATE);
+        assertThat(results.get(0).customId()).isNotEqualTo(results.get(1).customId());
+        assertThat(orderRepository.findByExternalOrderId(secondId)).isPresent();
+        assertThat(orderService.createOrders(List.of(first)))
+                .extracting(BatchOrderResult::status)
+                .containsExactly(BatchOrderResult.Status.DUPLICATE);
+    }
+
+    @Test
+    @Transactional
+    void shouldApplySourceChangesAndCancellation() {
+        // Given
+        String externalOrderId = UUID.randomUUID().toString();
+        CreateOrderRequest original = new CreateOrderRequest(
+                externalOrderId, "source@test.com", null, "987654321", "SourceUser",
+                false, null, BigDecimal.valueOf(120), "PLN", null, BigDecimal.TEN, "PLN",
+                "courier", "Courier", null, false, false, null, null, null);
+        SourceRevision originalRevision = new SourceRevision("default",
+                OrderFingerprint.of(original, false), Instant.parse("2025-01-15T10:00:00Z"), false);
+        orderService.createOrders(List.of(original), Map.of(externalOrderId, originalRevision));
+        entityManager.flush();
+        entityManager.clear();
+        CreateOrderRequest changed = new CreateOrderRequest(
+                externalOrderId, "changed@test.com", null, "987654321", "SourceUser",
+                false, null, BigDecimal.valueOf(120), "PLN", null, BigDecimal.TEN, "PLN",
+                "courier", "Courier", null, false, false, null, null, null);
+        SourceRevision changedRevision = new SourceRevision("default",
+                OrderFingerprint.of(changed, true), Instant.parse("2025-01-16T08:30:00Z"), true);
+
+        // When
+        List<BatchOrderResult> results = orderService.applySourceUpdates(
+                List.of(new SourceOrderUpdate(changed, changedRevision)));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        assertThat(results).extracting(BatchOrderResult::status).containsExactly(BatchOrderResult.Status.UPDATED);
+        assertThat(changedRevision.fingerprint()).isNotEqualTo(originalRevision.fingerprint());
+        Order updated = orderRepository.findByExternalOrderId(externalOrderId).orElseThrow();
+        assertThat(updated.getEmail()).isEqualTo("changed@test.com");
+        assertThat(updated.getStatus()).isEqualTo("CANCELLED");
+        assertThat(updated.getSourceFingerprint()).isEqualTo(changedRevision.fingerprint());
+        assertThat(updated.getSourceAccount()).isEqualTo("default");
+        assertThat(orderService.findSourceStates(List.of(externalOrderId)).get(externalOrderId).sourceUpdatedAt())
+                .isEqualTo(changedRevision.updatedAt());
+    }
+
+    @Test
+    @Transactional
+    void shouldApplySourceDeliveryUnlessEditedLocally() {
+        // Given
+        CreateOrderRequest synced = sourceOrder("courier", "Courier", null);
+        CreateOrderRequest patched = sourceOrder("courier", "Courier", null);
+        orderService.createOrders(List.of(synced, patched), Map.of(
+                synced.externalOrderId(), revision(synced),
+                patched.externalOrderId(), revision(patched)));
+        entityManager.flush();
+        Order patchedOrder = orderRepository.findByExternalOrderId(patched.externalOrderId()).orElseThrow();
+        orderService.patchOrder(patchedOrder.getUuid(), new PatchOrderRequest(
+                null, null, null, null, null, null, null, null, "pickup", "Pickup Point", "P7"));
+        entityManager.flush();
+        entityManager.clear();
+        CreateOrderRequest syncedChange = sourceOrder(synced.externalOrderId(), "locker", "Locker", "WAW01M");
+        CreateOrderRequest patchedChange = sourceOrder(patched.externalOrderId(), "locker", "Locker", "WAW01M");
+
+        // When
+        orderService.applySourceUpdates(List.of(
+                new SourceOrderUpdate(syncedChange, revision(syncedChange)),
+                new SourceOrderUpdate(patchedChange, revision(patchedChange))));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        assertThat(revision(syncedChange).fingerprint()).isNotEqualTo(revision(synced).fingerprint());
+        assertThat(orderRepository.findByExternalOrderId(synced.externalOrderId())).get()
+                .extracting(Order::getDeliveryMethodId, Order::getDeliveryMethodName, Order::getPickupPointId)
+                .containsExactly("locker", "Locker", "WAW01M");
+        assertThat(orderRepository.findByExternalOrderId(patched.externalOrderId())).get()
+                .extracting(Order::getDeliveryMethodId, Order::getDeliveryMethodName, Order::getPickupPointId)
+                .containsExactly("pickup", "Pickup Point", "P7");
+    }
+
+    private static CreateOrderRequest sourceOrder(String deliveryMethodId, String deliveryMethodName, String pickupPointId) {
+        return sourceOrder(UUID.randomUUID().toString(), deliveryMethodId, deliveryMethodName, pickupPointId);
+    }
+
+    private static CreateOrderRequest sourceOrder(String externalOrderId, String deliveryMethodId,
+                                                  String deliveryMethodName, String pickupPointId) {
+        return new CreateOrderRequest(
+                externalOrderId, "delivery@test.com", null, "987654321", "DeliveryUser",
+                false, null, BigDecimal.valueOf(80), "PLN", null, BigDecimal.TEN, "PLN",
+                deliveryMethodId, deliveryMethodName, pickupPointId, false, false, null, null, null);
+    }
+
+    private static SourceRevision revision(CreateOrderRequest request) {
+        return new SourceRevision("default", OrderFingerprint.of(request, false), Instant.parse("2025-01-15T10:00:00Z"), false);
+    }
 }
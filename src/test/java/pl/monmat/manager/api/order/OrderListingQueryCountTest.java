@@ -0,0 +1,93 @@
+package pl.monmat.manager.api.order;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+import pl.monmat.manager.api.order.dto.CursorPage;
+import pl.monmat.manager.api.order.dto.OrderItemRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class OrderListingQueryCountTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @Transactional
+    void shouldLoadPageOfOrdersWithItemsInConstantQueries() {
+        // Given
+        orderService.createOrders(IntStream.range(0, 10).mapToObj(i -> orderWithItems()).toList());
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        // When
+        List<Order> orders = orderController.getAll(0, 100).getContent();
+        orders.forEach(order -> order.getItems().forEach(OrderItem::getAttributes));
+
+        // Then
+        assertThat(orders).hasSizeGreaterThanOrEqualTo(10);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    @Transactional
+    void shouldLoadCursorPageOfOrdersWithItemsInConstantQueries() {
+        // Given
+        orderService.createOrders(IntStream.range(0, 10).mapToObj(i -> orderWithItems()).toList());
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        // When
+        CursorPage<Order> page = orderController.getAfter(null, 10, false);
+        page.items().forEach(order -> order.getItems().forEach(OrderItem::getAttributes));
+
+        // Then
+        assertThat(page.items()).hasSize(10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private CreateOrderRequest orderWithItems() {
+        List<OrderItemRequest> items = List.of(
+                new OrderItemRequest("offer-1", "Item 1", 1, BigDecimal.TEN, "PLN", Map.of("internalId", "A1")),
+                new OrderItemRequest("offer-2", "Item 2", 2, BigDecimal.ONE, "PLN", Map.of("internalId", "B2")));
+        return new CreateOrderRequest(
+                UUID.randomUUID().toString(), "listing@test.com", null, "987654321", "ListUser",
+                false, null, null, "PLN", null, BigDecimal.ZERO, "PLN",
+                "pickup", "Pickup Point", "P1", true, false, null, null, items);
+    }
+}
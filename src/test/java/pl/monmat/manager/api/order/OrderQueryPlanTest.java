@@ -0,0 +1,71 @@
+package pl.monmat.manager.api.order;
+
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderQueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void requirePostgres() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        assumeTrue("PostgreSQL".equals(product), "Query plan checks require PostgreSQL");
+        // Test tables are tiny, so force the planner to show whether an index is usable at all
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    @Transactional
+    void findByUuidShouldUseUuidIndex() {
+        assertThat(plan("SELECT * FROM orders WHERE uuid = '00000000-0000-0000-0000-000000000001'"))
+                .contains("ux_orders_uuid");
+    }
+
+    @Test
+    @Transactional
+    void customIdPrefixShouldUsePatternIndex() {
+        assertThat(plan("SELECT MAX(CAST(SUBSTRING(custom_id, 6) AS BIGINT)) FROM orders WHERE custom_id LIKE '2601/%'"))
+                .contains("ix_orders_custom_id_prefix");
+    }
+
+    @Test
+    @Transactional
+    void statusAndDateRangeShouldUseCompositeIndex() {
+        assertThat(plan("SELECT * FROM orders WHERE status = 'NEW' AND bought_at >= '2026-01-01' AND bought_at < '2026-02-01'"))
+                .contains("ix_orders_status_bought_at");
+    }
+
+    @Test
+    @Transactional
+    void itemsByOrderShouldUseForeignKeyIndex() {
+        assertThat(plan("SELECT * FROM order_items WHERE order_id IN (1, 2, 3)"))
+                .contains("ix_order_items_order_id");
+    }
+
+    @Test
+    @Transactional
+    void itemAttributeContainmentShouldUseGinIndex() {
+        assertThat(plan("SELECT * FROM order_items WHERE attributes @> '{\"internalId\": \"A1\"}'"))
+                .contains("ix_order_items_attributes");
+    }
+
+    private String plan(String sql) {
+        return String.join("\n", Objects.requireNonNull(jdbcTemplate.queryForList("EXPLAIN " + sql, String.class)));
+    }
+}
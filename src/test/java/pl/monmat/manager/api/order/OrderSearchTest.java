@@ -0,0 +1,169 @@
+package pl.monmat.manager.api.order;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import pl.monmat.manager.api.order.dto.CreateOrderRequest;
+import pl.monmat.manager.api.order.dto.CursorPage;
+import pl.monmat.manager.api.order.dto.OrderItemRequest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    private final String username = "search-" + UUID.randomUUID();
+    private final String tag = UUID.randomUUID().toString().substring(0, 8);
+
+    @BeforeEach
+    void createOrders() {
+        create("o1", "NEW", LocalDateTime.of(2096, 3, 1, 10, 0), LocalDateTime.of(2096, 3, 1, 11, 0),
+                "courier", true, "INT-A-" + tag);
+        create("o2", "NEW", LocalDateTime.of(2096, 3, 2, 10, 0), null, "pickup", false, null);
+        create("o3", "ACCEPTED", LocalDateTime.of(2096, 3, 3, 10, 0), LocalDateTime.of(2096, 3, 3, 12, 0),
+                "courier", false, "INT-C-" + tag);
+        entityManager.flush();
+    }
+
+    @Test
+    @Transactional
+    void shouldApplyEachFilterAndCombination() throws Exception {
+        assertThat(search()).containsExactly("o3", "o2", "o1");
+        assertThat(search("status", "NEW")).containsExactly("o2", "o1");
+        assertThat(search("boughtFrom", "2096-03-02T00:00:00", "boughtTo", "2096-03-03T10:00:00")).containsExactly("o2");
+        assertThat(search("boughtFrom", "2096-03-01T10:00:00")).containsExactly("o3", "o2", "o1");
+        assertThat(search("paidFrom", "2096-03-01T00:00:00")).containsExactly("o3", "o1");
+        assertThat(search("paidTo", "2096-03-03T12:00:00")).containsExactly("o1");
+        assertThat(search("deliveryMethodId", "courier")).containsExactly("o3", "o1");
+        assertThat(search("needsInvoice", "false")).containsExactly("o3", "o2");
+        assertThat(search("email", email("o2"))).containsExactly("o2");
+        assertThat(search("deliveryMethodId", "courier", "needsInvoice", "false")).containsExactly("o3");
+        assertThat(search("status", "NEW", "deliveryMethodId", "courier", "needsInvoice", "true",
+                "paidFrom", "2096-03-01T00:00:00", "boughtTo", "2096-03-02T00:00:00")).containsExactly("o1");
+        assertThat(search("internalId", "INT-C-" + tag)).containsExactly("o3");
+        assertThat(search("internalId", "INT-C-" + tag, "status", "NEW")).isEmpty();
+        assertThat(search("status", "CANCELLED")).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void shouldPageWithKeysetCursor() throws Exception {
+        // When
+        JsonNode first = searchPage(request("limit", "2", "includeTotal", "true"));
+        JsonNode second = searchPage(request("limit", "2", "includeTotal", "true",
+                "after", first.get("nextCursor").asString()));
+        JsonNode exact = searchPage(request("limit", "3"));
+
+        // Then
+        assertThat(ids(first)).containsExactly("o3", "o2");
+        assertThat(first.get("totalCount").asLong()).isEqualTo(3);
+        assertThat(ids(second)).containsExactly("o1");
+        assertThat(second.get("nextCursor").isNull()).isTrue();
+        assertThat(second.get("totalCount").asLong()).isEqualTo(3);
+        assertThat(ids(exact)).containsExactly("o3", "o2", "o1");
+        assertThat(exact.get("nextCursor").isNull()).isTrue();
+        assertThat(exact.get("totalCount").isNull()).isTrue();
+    }
+
+    @Test
+    @Transactional
+    void shouldRejectInvalidLimitAndCursor() throws Exception {
+        mockMvc.perform(request("limit", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(request("limit", "501")).andExpect(status().isBadRequest());
+        mockMvc.perform(request("after", "not a cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void shouldServeCursorPageWhenOnlyAfterIsGiven() throws Exception {
+        // Given
+        String cursor = CursorPage.encodeCursor(Long.MAX_VALUE);
+
+        // When
+        String body = mockMvc.perform(get("/api/orders").param("after", cursor))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode page = jsonMapper.readTree(body);
+
+        // Then
+        assertThat(page.has("items")).isTrue();
+        assertThat(page.has("content")).isFalse();
+        assertThat(page.get("items").size()).isBetween(3, 100);
+        mockMvc.perform(get("/api/orders").param("after", "not a cursor")).andExpect(status().isBadRequest());
+    }
+
+    private List<String> search(String... params) throws Exception {
+        return ids(searchPage(request(params)));
+    }
+
+    private MockHttpServletRequestBuilder request(String... params) {
+        MockHttpServletRequestBuilder request = get("/api/orders/search").param("username", username);
+        for (int i = 0; i < params.length; i += 2) {
+            request.param(params[i], params[i + 1]);
+        }
+        return request;
+    }
+
+    private JsonNode searchPage(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return jsonMapper.readTree(body);
+    }
+
+    private List<String> ids(JsonNode page) {
+        List<String> ids = new ArrayList<>();
+        for (JsonNode item : page.get("items")) {
+            ids.add(item.get("externalOrderId").asString().substring(tag.length() + 1));
+        }
+        return ids;
+    }
+
+    private String email(String name) {
+        return name + "-" + tag + "@search.test";
+    }
+
+    private void create(String name, String status, LocalDateTime boughtAt, LocalDateTime paymentAt,
+                        String deliveryMethodId, boolean needsInvoice, String internalId) {
+        Map<String, Object> attributes = internalId != null ? Map.of("internalId", internalId) : Map.of();
+        CreateOrderRequest request = new CreateOrderRequest(
+                tag + "-" + name, email(name), boughtAt, "987654321", username,
+                false, null, BigDecimal.TEN, "PLN", paymentAt, BigDecimal.ZERO, "PLN",
+                deliveryMethodId, deliveryMethodId, null, false, needsInvoice, null, null,
+                List.of(new OrderItemRequest("offer-" + name, "Item", 1, BigDecimal.TEN, "PLN", attributes)));
+        Order order = orderService.createOrder(request);
+        order.setStatus(status);
+    }
+}
@@ -20,6 +20,9 @@ class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private CustomIdAllocator customIdAllocator;
+
     @InjectMocks
     private OrderService orderService;
 